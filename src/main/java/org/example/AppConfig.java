@@ -1,9 +1,21 @@
 package org.example;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
 @ComponentScan(basePackages = "org.example.domain")
 public class AppConfig {
+
+    /**
+     * Runs the scheduled background tasks unless {@code bank.scheduling.enabled} is false,
+     * as for offline tools.
+     */
+    @Configuration
+    @EnableScheduling
+    @ConditionalOnProperty(name = "bank.scheduling.enabled", matchIfMissing = true)
+    static class SchedulingConfig {
+    }
 }
@@ -1,6 +1,7 @@
 package org.example;
 
 import org.example.domain.model.BankAccount;
+import org.example.domain.repository.sharding.ReplicaContext;
 import org.example.domain.service.BankAccountService;
 import org.example.domain.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 import java.util.Scanner;
+import java.util.UUID;
 
 /**
  * Main application class for managing customers and bank accounts through a console interface.
@@ -41,41 +43,50 @@ public class Main implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
         Scanner scanner = new Scanner(System.in);
+        String session = "console-" + UUID.randomUUID();
         while (true) {
             System.out.println("1. Register Customer");
             System.out.println("2. Open Bank Account");
             System.out.println("3. Deposit Money");
             System.out.println("4. Withdraw Money");
             System.out.println("5. Check Balance");
-            System.out.println("6. Exit");
+            System.out.println("6. Search Customers");
+            System.out.println("7. Exit");
             System.out.print("Choose an option: ");
             int choice = scanner.nextInt();
             scanner.nextLine();  // Clear newline
 
-            switch (choice) {
-                case 1:
-                    registerCustomer(scanner);
-                    break;
-                case 2:
-                    openBankAccount(scanner);
-                    break;
-                case 3:
-                    depositMoney(scanner);
-                    break;
-                case 4:
-                    withdrawMoney(scanner);
-                    break;
-                case 5:
-                    checkBalance(scanner);
-                    break;
-                case 6:
-                    System.out.println("Exiting...");
-                    scanner.close();
-                    System.exit(0);
-                    break;
-                default:
-                    System.out.println("Invalid option. Try again.");
-            }
+            // The console is one user session, so its reads always see its own writes
+            ReplicaContext.withSession(session, () -> {
+                switch (choice) {
+                    case 1:
+                        registerCustomer(scanner);
+                        break;
+                    case 2:
+                        openBankAccount(scanner);
+                        break;
+                    case 3:
+                        depositMoney(scanner);
+                        break;
+                    case 4:
+                        withdrawMoney(scanner);
+                        break;
+                    case 5:
+                        checkBalance(scanner);
+                        break;
+                    case 6:
+                        searchCustomers(scanner);
+                        break;
+                    case 7:
+                        System.out.println("Exiting...");
+                        scanner.close();
+                        System.exit(0);
+                        break;
+                    default:
+                        System.out.println("Invalid option. Try again.");
+                }
+                return null;
+            });
         }
     }
 
@@ -171,6 +182,26 @@ public class Main implements CommandLineRunner {
         }
     }
 
+    /**
+     * Searches customers by part of their name, DNI or email.
+     *
+     * @param scanner Scanner for console input.
+     */
+    private void searchCustomers(Scanner scanner) {
+        System.out.print("Enter name, DNI or email to search: ");
+        String query = scanner.nextLine();
+
+        try {
+            var customers = customerService.searchCustomers(query, 10);
+            if (customers.isEmpty()) {
+                System.out.println("No customers found.");
+            }
+            customers.forEach(customer -> System.out.println("Customer found: " + customer));
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     /**
      * Checks the balance of an existing bank account.
      *
@@ -0,0 +1,54 @@
+package org.example;
+
+import org.example.domain.repository.sharding.ShardRebalancer;
+import org.example.domain.service.CustomerKeyRegistry;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import java.util.Map;
+
+/**
+ * Offline tool that redistributes rows after the shard list in {@code bank.sharding.shards}
+ * has changed. Starts the application context without the console menu and without
+ * scheduled tasks, runs the rebalancer and exits. With {@code --mode=backfill-keys} it
+ * instead claims the DNI and email of customers registered before values were claimed;
+ * run it once after upgrading such a database, after any rebalance.
+ *
+ * <pre>
+ * java -cp target/mi_primera_app-1.0-SNAPSHOT.jar -Dloader.main=org.example.ShardRebalanceTool \
+ *     org.springframework.boot.loader.PropertiesLauncher [--mode=backfill-keys]
+ * </pre>
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@Import(AppConfig.class)
+public class ShardRebalanceTool {
+
+    /**
+     * Runs the rebalancer, or the key backfill, against the configured shards.
+     *
+     * @param args Application arguments.
+     */
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShardRebalanceTool.class)
+                .web(WebApplicationType.NONE)
+                .properties("bank.search.build-on-startup=false", "bank.scheduling.enabled=false")
+                .run(args)) {
+            String mode = context.getEnvironment().getProperty("mode", "rebalance");
+            if ("backfill-keys".equals(mode)) {
+                Map<String, Integer> result = context.getBean(CustomerKeyRegistry.class).backfill();
+                System.out.println("Checked " + result.get("customers") + " customers, found "
+                        + result.get("conflicts") + " values held by another customer");
+            } else if ("rebalance".equals(mode)) {
+                Map<String, Integer> moved = context.getBean(ShardRebalancer.class).rebalance();
+                moved.forEach((table, rows) -> System.out.println("Moved " + rows + " rows of " + table));
+            } else {
+                throw new IllegalArgumentException("Unknown mode " + mode + ", expected rebalance or backfill-keys");
+            }
+        }
+    }
+}
@@ -36,9 +36,10 @@ public class BankAccount {
 
     /**
      * Many-to-One relationship with the Customer entity. Each bank account belongs to a single customer.
+     * Accounts and customers are sharded independently, so no foreign key constraint is enforced.
     */
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "customer_id", nullable = false)
+    @JoinColumn(name = "customer_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Customer customer;
 
     /**
@@ -59,6 +60,23 @@ public class BankAccount {
         this.balance = 0.0;
     }
 
+    /**
+     * Returns a detached copy of this account holding the given balance, used to answer a
+     * retried request with the state its original execution produced.
+     *
+     * @param balance The balance to report.
+     * @return A copy of the account that is not managed by any persistence context.
+     */
+    public BankAccount withBalance(double balance) {
+        BankAccount copy = new BankAccount();
+        copy.id = id;
+        copy.accountNumber = accountNumber;
+        copy.accountType = accountType;
+        copy.customer = customer;
+        copy.balance = balance;
+        return copy;
+    }
+
     // Getters and Setters
     
     public Long getId() {
@@ -1,21 +1,24 @@
 package org.example.domain.model;
 
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
- * Represents a customer entity with personal details and associated bank accounts.
- * A customer can hold multiple bank accounts.
+ * Represents a customer entity with personal details. A customer can hold multiple bank
+ * accounts; accounts live on the shard of their account number rather than on the
+ * customer's, so they are not mapped here and are read through the bank account service.
 */
 @Entity
 @Table(name = "customers")
 public class Customer {
 
+    /**
+     * Globally unique id generated before insert, so the customer's shard is known up front.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "customer-id")
+    @GenericGenerator(name = "customer-id", strategy = "org.example.domain.repository.sharding.SnowflakeIdGenerator")
     private Long id;
 
     @Column(name = "first_name", nullable = false)
@@ -30,13 +33,6 @@ public class Customer {
     @Column(name = "email", nullable = false, unique = true)
     private String email;
 
-    /**
-     * One-to-Many relationship with the BankAccount entity. A customer can have multiple bank accounts.
-     * All associated accounts are removed if the customer is deleted.
-    */
-    @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
-    private List<BankAccount> bankAccounts = new ArrayList<>();
-
     /**
      * Default constructor required by JPA.
     */
@@ -132,27 +128,6 @@ public class Customer {
         this.email = email;
     }
 
-    /**
-     * Adds a bank account to the customer's list of accounts.
-     * 
-     * @param account The bank account to add.
-     */
-    public void addBankAccount(BankAccount account) {
-        bankAccounts.add(account);
-        account.setCustomer(this);
-    }
-
-    /**
-     * Retrieves all bank accounts with a positive balance.
-     * 
-     * @return A list of bank accounts with a balance greater than zero.
-     */
-    public List<BankAccount> getPositiveBalanceAccounts() {
-        return bankAccounts.stream()
-                .filter(account -> account.getBalance() > 0)
-                .collect(Collectors.toList());
-    }
-
     /**
      * Validates the format of the email address.
      * 
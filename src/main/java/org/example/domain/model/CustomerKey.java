@@ -0,0 +1,94 @@
+package org.example.domain.model;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Claim of a value that must be unique across all customers, such as a DNI or an email
+ * address. Claims are stored on the shard of the value itself rather than on the shard of
+ * the customer, so two customers claiming the same value always meet on one primary key.
+ */
+@Entity
+@Table(name = "customer_keys")
+public class CustomerKey implements Persistable<String> {
+
+    /**
+     * Enum defining the customer fields that must be unique.
+     */
+    public enum KeyType {
+        DNI, EMAIL
+    }
+
+    @Id
+    @Column(name = "key_value")
+    private String key;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Keys are derived from the claimed value, so new claims are flagged explicitly to avoid a merge
+    @Transient
+    private boolean isNew;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public CustomerKey() {
+    }
+
+    /**
+     * Constructor that initializes a new claim.
+     *
+     * @param key The key built by {@link #keyOf}.
+     * @param customerId The customer claiming the value.
+     */
+    public CustomerKey(String key, Long customerId) {
+        this.key = key;
+        this.customerId = customerId;
+        this.createdAt = Instant.now();
+        this.isNew = true;
+    }
+
+    /**
+     * Builds the key of a claimed value. Email addresses are compared ignoring case.
+     *
+     * @param type The field the value belongs to.
+     * @param value The value to claim.
+     * @return The key identifying the value across all customers.
+     */
+    public static String keyOf(KeyType type, String value) {
+        return type.name() + ':' + (type == KeyType.EMAIL ? value.toLowerCase(Locale.ROOT) : value);
+    }
+
+    // Getters
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.domain.model;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Persisted record of an idempotent deposit or withdrawal, keyed by the client-supplied
+ * idempotency key. Used to detect retries once the in-memory cache has expired.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord implements Persistable<String> {
+
+    /**
+     * Enum defining the operations that accept an idempotency key.
+     */
+    public enum Operation {
+        DEPOSIT, WITHDRAW
+    }
+
+    /**
+     * Maximum length of an idempotency key.
+     */
+    public static final int MAX_KEY_LENGTH = 64;
+
+    @Id
+    @Column(name = "idempotency_key", length = MAX_KEY_LENGTH)
+    private String key;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 16)
+    private Operation operation;
+
+    @Column(name = "account_number", nullable = false)
+    private String accountNumber;
+
+    @Column(name = "amount", nullable = false)
+    private double amount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Balance of the account right after the operation, returned to retries of the key
+    @Column(name = "result_balance")
+    private Double resultBalance;
+
+    // Keys are assigned by the client, so new records are flagged explicitly to avoid a merge
+    @Transient
+    private boolean isNew;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public IdempotencyRecord() {
+    }
+
+    /**
+     * Constructor that initializes a new record for an operation being applied.
+     *
+     * @param key The client-supplied idempotency key.
+     * @param operation The operation applied under the key.
+     * @param accountNumber The account the operation targets.
+     * @param amount The amount of the operation.
+     */
+    public IdempotencyRecord(String key, Operation operation, String accountNumber, double amount) {
+        this.key = key;
+        this.operation = operation;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.createdAt = Instant.now();
+        this.isNew = true;
+    }
+
+    // Getters
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Double getResultBalance() {
+        return resultBalance;
+    }
+
+    // Setters
+
+    public void setResultBalance(Double resultBalance) {
+        this.resultBalance = resultBalance;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Checks whether this record describes the same request as the given parameters.
+     *
+     * @param operation The operation of the incoming request.
+     * @param accountNumber The account of the incoming request.
+     * @param amount The amount of the incoming request.
+     * @return true if the request matches the one recorded under this key.
+     */
+    public boolean matches(Operation operation, String accountNumber, double amount) {
+        return this.operation == operation
+                && this.accountNumber.equals(accountNumber)
+                && Double.compare(this.amount, amount) == 0;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
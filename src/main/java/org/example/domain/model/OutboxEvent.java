@@ -0,0 +1,95 @@
+package org.example.domain.model;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Represents a domain event waiting to be published to downstream systems.
+ * Events are written in the same transaction as the change they describe and
+ * removed once the relay has delivered them.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    /**
+     * Enum defining the types of events published through the outbox.
+     */
+    public enum EventType {
+        CUSTOMER_REGISTERED, CUSTOMER_UPDATED, CUSTOMER_DELETED, ACCOUNT_OPENED, DEPOSIT, WITHDRAWAL
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private EventType eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private String aggregateId;
+
+    @Column(name = "payload", nullable = false, length = 2000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public OutboxEvent() {
+    }
+
+    /**
+     * Constructor that initializes a new event.
+     *
+     * @param eventType The type of event.
+     * @param aggregateId The identifier of the customer or account the event refers to.
+     * @param payload The event body as JSON.
+     */
+    public OutboxEvent(EventType eventType, String aggregateId, String payload) {
+        this.eventType = eventType;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public EventType getEventType() {
+        return eventType;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns a String representation of the event, showing key details.
+     *
+     * @return A string with the event's state.
+     */
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+                "id=" + id +
+                ", eventType=" + eventType +
+                ", aggregateId='" + aggregateId + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
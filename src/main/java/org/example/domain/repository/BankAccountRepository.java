@@ -2,8 +2,13 @@ package org.example.domain.repository;
 
 import org.example.domain.model.BankAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,4 +25,25 @@ public interface BankAccountRepository extends JpaRepository<BankAccount, Long>
      * @return An Optional containing the BankAccount if found, or empty if not found.
      */
     Optional<BankAccount> findByAccountNumber(String accountNumber);
+
+    /**
+     * Retrieves the bank accounts of a customer stored in the current shard.
+     *
+     * @param customerId The ID of the customer who owns the accounts.
+     * @return A list of the customer's bank accounts in this shard.
+     */
+    // A derived query would join the customers table, which holds the customer on its own shard only
+    @Query("select a from BankAccount a where a.customer.id = :customerId")
+    List<BankAccount> findByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * Deletes the bank accounts of a customer stored in the current shard.
+     *
+     * @param customerId The ID of the customer who owns the accounts.
+     * @return The number of deleted accounts.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from BankAccount a where a.customer.id = :customerId")
+    int deleteByCustomerId(@Param("customerId") Long customerId);
 }
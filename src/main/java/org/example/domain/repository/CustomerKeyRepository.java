@@ -0,0 +1,47 @@
+package org.example.domain.repository;
+
+import org.example.domain.model.CustomerKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Repository interface for CustomerKey entity, providing methods for CRUD operations.
+ * Extends JpaRepository to inherit standard data access operations.
+ */
+@Repository
+public interface CustomerKeyRepository extends JpaRepository<CustomerKey, String> {
+
+    /**
+     * Deletes a claim if it is still held by the given customer.
+     *
+     * @param key The claimed key.
+     * @param customerId The customer expected to hold the claim.
+     * @return The number of deleted claims.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from CustomerKey k where k.key = :key and k.customerId = :customerId")
+    int deleteClaim(@Param("key") String key, @Param("customerId") Long customerId);
+
+    /**
+     * Hands a claim over to another customer if it is still held by the expected one.
+     *
+     * @param key The claimed key.
+     * @param previousCustomerId The customer expected to hold the claim.
+     * @param customerId The customer taking the claim over.
+     * @param claimedAt The time of the takeover.
+     * @return The number of updated claims.
+     */
+    @Transactional
+    @Modifying
+    @Query("update CustomerKey k set k.customerId = :customerId, k.createdAt = :claimedAt "
+            + "where k.key = :key and k.customerId = :previousCustomerId")
+    int takeOver(@Param("key") String key, @Param("previousCustomerId") Long previousCustomerId,
+                 @Param("customerId") Long customerId, @Param("claimedAt") Instant claimedAt);
+}
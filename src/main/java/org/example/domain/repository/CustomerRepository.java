@@ -1,9 +1,11 @@
 package org.example.domain.repository;
 
 import org.example.domain.model.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,4 +30,13 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
      * @return true if a customer with the email exists, false otherwise.
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Reads the searchable fields of customers in id order, one page after a given id.
+     *
+     * @param id The last id of the previous page.
+     * @param pageable The page size; the page number should stay 0.
+     * @return The searchable fields of the customers following the given id.
+     */
+    List<CustomerSearchFields> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
@@ -0,0 +1,18 @@
+package org.example.domain.repository;
+
+/**
+ * Projection of the Customer fields covered by the search index, so that loading the
+ * index reads only these columns instead of whole managed entities.
+ */
+public interface CustomerSearchFields {
+
+    Long getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getDni();
+
+    String getEmail();
+}
@@ -0,0 +1,40 @@
+package org.example.domain.repository;
+
+import org.example.domain.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for OutboxEvent entity, providing methods for CRUD operations.
+ * Extends JpaRepository to inherit standard data access operations.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Retrieves the oldest pending events in id order.
+     *
+     * @param pageable The maximum number of events to return.
+     * @return A list of pending events ordered by id.
+     */
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Deletes delivered events in a single statement.
+     *
+     * @param ids The ids of the delivered events.
+     * @return The number of deleted events.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteDelivered(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,56 @@
+package org.example.domain.repository.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers when each session last wrote, so its reads can stay on the primary until
+ * the replicas have had time to catch up with that write.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final ReplicationProperties properties;
+    private final ConcurrentMap<String, Long> lastWriteMillis = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for ReadYourWritesTracker, injecting the replication configuration.
+     *
+     * @param properties The replication configuration.
+     */
+    @Autowired
+    public ReadYourWritesTracker(ReplicationProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Records that a session's write has just committed.
+     *
+     * @param session The session identifier.
+     */
+    public void recordWrite(String session) {
+        lastWriteMillis.put(session, System.currentTimeMillis());
+    }
+
+    /**
+     * @param session The session identifier.
+     * @return true if the session wrote within the read-your-writes window.
+     */
+    public boolean wroteRecently(String session) {
+        Long last = lastWriteMillis.get(session);
+        return last != null && System.currentTimeMillis() - last < properties.getReadYourWritesWindowMillis();
+    }
+
+    /**
+     * Forgets sessions whose last write is older than the read-your-writes window.
+     */
+    @Scheduled(fixedDelayString = "${bank.replication.read-your-writes-window-millis:5000}")
+    public void evictExpiredSessions() {
+        long cutoff = System.currentTimeMillis() - properties.getReadYourWritesWindowMillis();
+        lastWriteMillis.values().removeIf(last -> last < cutoff);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.domain.repository.sharding;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the read routing state of the current thread: the session used for read-your-writes
+ * and whether the work in progress declared that it tolerates replica lag. Both are set
+ * explicitly by callers; work without a session or without the declaration reads from the
+ * primary, so reads that merely happen to run in a read-only transaction, such as Spring
+ * Data's own, never see stale data.
+ */
+public final class ReplicaContext {
+
+    private static final ThreadLocal<String> SESSION = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> REPLICA_READS = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> FORCED_REPLICA = new ThreadLocal<>();
+
+    private ReplicaContext() {
+    }
+
+    /**
+     * @return The session of the current thread, or null if the caller did not supply one.
+     */
+    public static String session() {
+        return SESSION.get();
+    }
+
+    /**
+     * Tells whether the current work may be served by a replica: it runs on behalf of a
+     * session, declared through {@link #replicaReads} that it tolerates replica lag, and runs
+     * in a read-only transaction or outside any transaction on a worker thread.
+     *
+     * @return true if the current work may read from a replica.
+     */
+    public static boolean isReplicaRead() {
+        if (SESSION.get() == null || !Boolean.TRUE.equals(REPLICA_READS.get())) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * @return true if the current thread runs a transaction that may write.
+     */
+    public static boolean isWriting() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * Runs an action on behalf of the given session, restoring the previous session afterwards.
+     * Entry points call this with the id of the user or request session they serve.
+     *
+     * @param session The session identifier, e.g. a user or request session id.
+     * @param action The action to run.
+     * @return The result of the action.
+     */
+    public static <T> T withSession(String session, Supplier<T> action) {
+        return new Snapshot(session, Boolean.TRUE.equals(REPLICA_READS.get())).call(action);
+    }
+
+    /**
+     * Runs read-only work that tolerates replica lag. Services call this inside their read-only
+     * transactions; reads of the session's own recent writes still go to the primary.
+     *
+     * @param action The reads to run.
+     * @return The result of the action.
+     */
+    public static <T> T replicaReads(Supplier<T> action) {
+        return new Snapshot(SESSION.get(), true).call(action);
+    }
+
+    /**
+     * Captures the state of the current thread so it can be applied on a worker thread.
+     *
+     * @return The captured state.
+     */
+    public static Snapshot capture() {
+        return new Snapshot(SESSION.get(), Boolean.TRUE.equals(REPLICA_READS.get()));
+    }
+
+    /**
+     * Runs an action with every connection of the current thread sent to the given replica,
+     * bypassing read routing. Used to maintain the schema of simulated replicas.
+     *
+     * @param replica The replica index within the selected shard.
+     * @param action The action to run.
+     */
+    static void onReplica(int replica, Runnable action) {
+        FORCED_REPLICA.set(replica);
+        try {
+            action.run();
+        } finally {
+            FORCED_REPLICA.remove();
+        }
+    }
+
+    /**
+     * @return The replica forced by {@link #onReplica}, or -1 if none.
+     */
+    static int forcedReplica() {
+        Integer replica = FORCED_REPLICA.get();
+        return replica != null ? replica : -1;
+    }
+
+    /**
+     * Read routing state captured from one thread and applied on another.
+     */
+    public static final class Snapshot {
+
+        private final String session;
+        private final boolean replicaReads;
+
+        private Snapshot(String session, boolean replicaReads) {
+            this.session = session;
+            this.replicaReads = replicaReads;
+        }
+
+        /**
+         * Runs an action with this state applied, restoring the previous state afterwards.
+         *
+         * @param action The action to run.
+         * @return The result of the action.
+         */
+        public <T> T call(Supplier<T> action) {
+            String previousSession = SESSION.get();
+            Boolean previousReplicaReads = REPLICA_READS.get();
+            set(SESSION, session);
+            REPLICA_READS.set(replicaReads);
+            try {
+                return action.get();
+            } finally {
+                set(SESSION, previousSession);
+                set(REPLICA_READS, previousReplicaReads);
+            }
+        }
+
+        private static <V> void set(ThreadLocal<V> holder, V value) {
+            if (value == null) {
+                holder.remove();
+            } else {
+                holder.set(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.domain.repository.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Measures how far each replica lags behind its primary. A heartbeat row on every primary
+ * is updated periodically; a replica's lag is the age of the heartbeat it last showed,
+ * computed when asked, so the lag keeps growing if heartbeats stop arriving. Replicas start
+ * out with an unknown lag and are not used until they have been measured; a measurement
+ * older than the maximum lag counts as unknown again.
+ */
+@Component
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final String HEARTBEAT_TABLE = "replication_heartbeat";
+
+    private final ShardDataSources shardDataSources;
+    private final ReplicationProperties properties;
+    // Heartbeat last read from each replica, keyed by "shard/replica"
+    private final ConcurrentMap<String, Measurement> measurements = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for ReplicaLagMonitor, injecting the shard datasources.
+     *
+     * @param shardDataSources The datasources of all shards and replicas.
+     * @param properties The replication configuration.
+     */
+    @Autowired
+    public ReplicaLagMonitor(ShardDataSources shardDataSources, ReplicationProperties properties) {
+        this.shardDataSources = shardDataSources;
+        this.properties = properties;
+    }
+
+    /**
+     * Creates the heartbeat table on every primary that has replicas.
+     */
+    @PostConstruct
+    public void createHeartbeatTables() {
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            if (!shardDataSources.replicas(shard).isEmpty()) {
+                createHeartbeatTable(new JdbcTemplate(shardDataSources.get(shard)));
+            }
+        }
+    }
+
+    /**
+     * Creates the heartbeat table on a database if it does not exist yet.
+     *
+     * @param database The database to create the table on.
+     */
+    static void createHeartbeatTable(JdbcTemplate database) {
+        database.execute("CREATE TABLE IF NOT EXISTS " + HEARTBEAT_TABLE
+                + " (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+    }
+
+    /**
+     * Writes a heartbeat on every primary and measures the lag of its replicas.
+     */
+    @Scheduled(fixedDelayString = "${bank.replication.heartbeat-interval-millis:500}")
+    public void heartbeat() {
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            List<DataSource> replicas = shardDataSources.replicas(shard);
+            if (replicas.isEmpty()) {
+                continue;
+            }
+            try {
+                writeHeartbeat(new JdbcTemplate(shardDataSources.get(shard)));
+            } catch (DataAccessException e) {
+                log.warn("Could not write replication heartbeat on shard {}", shard, e);
+            }
+            for (int replica = 0; replica < replicas.size(); replica++) {
+                String key = key(shard, replica);
+                Long beatMillis = readHeartbeat(new JdbcTemplate(replicas.get(replica)));
+                if (beatMillis == null) {
+                    measurements.remove(key);
+                } else {
+                    measurements.put(key, new Measurement(beatMillis, System.currentTimeMillis()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param shard The shard number.
+     * @param replica The replica index within the shard.
+     * @return true if the replica has been measured and lags less than the configured maximum.
+     */
+    public boolean isWithinMaxLag(int shard, int replica) {
+        return getLagMillis(shard, replica) <= properties.getMaxLagMillis();
+    }
+
+    /**
+     * @param shard The shard number.
+     * @param replica The replica index within the shard.
+     * @return The lag in milliseconds as of now, or Long.MAX_VALUE if unknown.
+     */
+    public long getLagMillis(int shard, int replica) {
+        return lagOf(measurements.get(key(shard, replica)), System.currentTimeMillis());
+    }
+
+    /**
+     * @return The lag as of now of every measured replica, keyed by "shard/replica".
+     */
+    public Map<String, Long> getLagSnapshot() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> snapshot = new HashMap<>();
+        measurements.forEach((key, measurement) -> snapshot.put(key, lagOf(measurement, now)));
+        return snapshot;
+    }
+
+    private void writeHeartbeat(JdbcTemplate primary) {
+        long now = System.currentTimeMillis();
+        if (primary.update("UPDATE " + HEARTBEAT_TABLE + " SET beat_millis = ? WHERE id = 1", now) == 0) {
+            primary.update("INSERT INTO " + HEARTBEAT_TABLE + " (id, beat_millis) VALUES (1, ?)", now);
+        }
+    }
+
+    /**
+     * @return The heartbeat the replica shows, or null if it shows none or cannot be read.
+     */
+    private Long readHeartbeat(JdbcTemplate replica) {
+        try {
+            List<Long> beats = replica.queryForList(
+                    "SELECT beat_millis FROM " + HEARTBEAT_TABLE + " WHERE id = 1", Long.class);
+            return beats.isEmpty() ? null : beats.get(0);
+        } catch (DataAccessException e) {
+            return null;
+        }
+    }
+
+    private long lagOf(Measurement measurement, long now) {
+        if (measurement == null || now - measurement.measuredAtMillis > properties.getMaxLagMillis()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, now - measurement.beatMillis);
+    }
+
+    private static String key(int shard, int replica) {
+        return shard + "/" + replica;
+    }
+
+    /**
+     * A heartbeat read from a replica and the time it was read.
+     */
+    private static final class Measurement {
+        final long beatMillis;
+        final long measuredAtMillis;
+
+        Measurement(long beatMillis, long measuredAtMillis) {
+            this.beatMillis = beatMillis;
+            this.measuredAtMillis = measuredAtMillis;
+        }
+    }
+}
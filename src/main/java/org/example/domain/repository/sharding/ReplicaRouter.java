@@ -0,0 +1,71 @@
+package org.example.domain.repository.sharding;
+
+import org.example.domain.service.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether a connection may be served by a read replica. Work declared as replica
+ * reads (see {@link ReplicaContext#replicaReads}) goes to a replica of its shard unless the
+ * session wrote within the read-your-writes window or no replica is within the maximum lag;
+ * everything else goes to the primary.
+ */
+@Component
+public class ReplicaRouter {
+
+    private final ShardDataSources shardDataSources;
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * Constructor for ReplicaRouter, injecting the replica health and session trackers.
+     *
+     * @param shardDataSources The datasources of all shards and replicas.
+     * @param lagMonitor Monitor providing the lag of each replica.
+     * @param readYourWritesTracker Tracker of recent writes per session.
+     */
+    @Autowired
+    public ReplicaRouter(ShardDataSources shardDataSources, ReplicaLagMonitor lagMonitor,
+                         ReadYourWritesTracker readYourWritesTracker) {
+        this.shardDataSources = shardDataSources;
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    /**
+     * Selects the datasource for a new connection of the current thread. If the connection
+     * belongs to a writing transaction, the session's write is recorded once it commits, so
+     * the read-your-writes window starts when the write becomes visible.
+     *
+     * @param shard The shard the connection is for.
+     * @return The replica index to use, or -1 to use the primary.
+     */
+    public int selectReplica(int shard) {
+        int forced = ReplicaContext.forcedReplica();
+        if (forced >= 0) {
+            return forced;
+        }
+        String session = ReplicaContext.session();
+        if (ReplicaContext.isWriting()) {
+            if (session != null) {
+                TransactionCallbacks.afterCommit(() -> readYourWritesTracker.recordWrite(session));
+            }
+            return -1;
+        }
+        int replicaCount = shardDataSources.replicas(shard).size();
+        if (replicaCount == 0 || !ReplicaContext.isReplicaRead() || readYourWritesTracker.wroteRecently(session)) {
+            return -1;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicaCount);
+        for (int i = 0; i < replicaCount; i++) {
+            int replica = (start + i) % replicaCount;
+            if (lagMonitor.isWithinMaxLag(shard, replica)) {
+                return replica;
+            }
+        }
+        return -1;
+    }
+}
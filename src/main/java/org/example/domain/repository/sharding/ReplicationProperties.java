@@ -0,0 +1,46 @@
+package org.example.domain.repository.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of read replica routing, bound from the {@code bank.replication} properties.
+ * Replicas themselves are listed per shard under {@code bank.sharding.shards[n].replicas}.
+ */
+@Component
+@ConfigurationProperties(prefix = "bank.replication")
+public class ReplicationProperties {
+
+    // How long a session keeps reading from the primary after it writes
+    private long readYourWritesWindowMillis = 5_000;
+
+    // Replicas lagging further behind than this are not used
+    private long maxLagMillis = 2_000;
+
+    // Replication delay applied by the simulated replicator; 0 disables it
+    private long simulatedDelayMillis;
+
+    public long getReadYourWritesWindowMillis() {
+        return readYourWritesWindowMillis;
+    }
+
+    public void setReadYourWritesWindowMillis(long readYourWritesWindowMillis) {
+        this.readYourWritesWindowMillis = readYourWritesWindowMillis;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public void setMaxLagMillis(long maxLagMillis) {
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public long getSimulatedDelayMillis() {
+        return simulatedDelayMillis;
+    }
+
+    public void setSimulatedDelayMillis(long simulatedDelayMillis) {
+        this.simulatedDelayMillis = simulatedDelayMillis;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.domain.repository.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard selected for the current thread. The routing datasource reads it when a
+ * connection is first used, so it must be set before the first statement of a transaction.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return The shard selected for the current thread, or null if none is selected.
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs an action with the given shard selected, restoring the previous selection afterwards.
+     *
+     * @param shard The shard to select.
+     * @param action The action to run.
+     * @return The result of the action.
+     */
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs an action with the given shard selected, restoring the previous selection afterwards.
+     *
+     * @param shard The shard to select.
+     * @param action The action to run.
+     */
+    public static void run(int shard, Runnable action) {
+        call(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.domain.repository.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The physical datasources of all shards, indexed by shard number, together with
+ * the read replicas of each shard.
+ */
+public class ShardDataSources implements DisposableBean {
+
+    private final List<DataSource> dataSources;
+    private final List<List<DataSource>> replicas;
+
+    /**
+     * Constructor that wraps the shard datasources and their replicas in shard order.
+     *
+     * @param dataSources The primary datasource of each shard.
+     * @param replicas The replica datasources of each shard, possibly empty.
+     */
+    public ShardDataSources(List<DataSource> dataSources, List<List<DataSource>> replicas) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required.");
+        }
+        if (replicas.size() != dataSources.size()) {
+            throw new IllegalArgumentException("Replicas must be listed for every shard.");
+        }
+        this.dataSources = List.copyOf(dataSources);
+        List<List<DataSource>> copies = new ArrayList<>();
+        replicas.forEach(shardReplicas -> copies.add(List.copyOf(shardReplicas)));
+        this.replicas = List.copyOf(copies);
+    }
+
+    /**
+     * @param shard The shard number.
+     * @return The physical primary datasource of the shard.
+     */
+    public DataSource get(int shard) {
+        return dataSources.get(shard);
+    }
+
+    /**
+     * @param shard The shard number.
+     * @return The read replica datasources of the shard.
+     */
+    public List<DataSource> replicas(int shard) {
+        return replicas.get(shard);
+    }
+
+    /**
+     * @return The number of shards.
+     */
+    public int size() {
+        return dataSources.size();
+    }
+
+    /**
+     * Closes the connection pools of all shards and replicas.
+     */
+    @Override
+    public void destroy() throws IOException {
+        List<DataSource> all = new ArrayList<>(dataSources);
+        replicas.forEach(all::addAll);
+        for (DataSource dataSource : all) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.domain.repository.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Offline tool that moves rows to the shard they belong to under the current shard count.
+ * Run it after adding shards, with the application stopped. Rows are copied to their target
+ * shard before being deleted from the source, so an interrupted run can simply be repeated.
+ * Pending outbox events are not moved; the relay drains them from whichever shard holds them.
+ */
+@Component
+public class ShardRebalancer {
+
+    private final ShardDataSources shardDataSources;
+    private final ShardRouter shardRouter;
+
+    /**
+     * Constructor for ShardRebalancer, injecting the shard datasources.
+     *
+     * @param shardDataSources The datasources of all shards.
+     * @param shardRouter The router defining where each row belongs.
+     */
+    @Autowired
+    public ShardRebalancer(ShardDataSources shardDataSources, ShardRouter shardRouter) {
+        this.shardDataSources = shardDataSources;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Moves every misplaced customer, bank account, idempotency key and customer key claim to its
+     * target shard.
+     *
+     * @return The number of rows moved per table.
+     */
+    public Map<String, Integer> rebalance() {
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        moved.put("customers", rebalanceTable("customers", "id", "id", List.of(),
+                routingValue -> shardRouter.shardForCustomer(((Number) routingValue).longValue())));
+        // Bank account ids are per-shard identities, so the target shard assigns a new one
+        moved.put("bank_accounts", rebalanceTable("bank_accounts", "account_number", "account_number", List.of("id"),
+                routingValue -> shardRouter.shardForAccount((String) routingValue)));
+        moved.put("idempotency_keys", rebalanceTable("idempotency_keys", "idempotency_key", "account_number", List.of(),
+                routingValue -> shardRouter.shardForAccount((String) routingValue)));
+        moved.put("customer_keys", rebalanceTable("customer_keys", "key_value", "key_value", List.of(),
+                routingValue -> shardRouter.shardForKey((String) routingValue)));
+        return moved;
+    }
+
+    private int rebalanceTable(String table, String keyColumn, String routingColumn, List<String> excludedColumns,
+                               Function<Object, Integer> targetShard) {
+        int moved = 0;
+        for (int source = 0; source < shardDataSources.size(); source++) {
+            JdbcTemplate sourceJdbc = jdbc(source);
+            Map<Object, Integer> misplaced = new LinkedHashMap<>();
+            int current = source;
+            sourceJdbc.query("SELECT " + keyColumn + ", " + routingColumn + " FROM " + table, resultSet -> {
+                int target = targetShard.apply(resultSet.getObject(2));
+                if (target != current) {
+                    misplaced.put(resultSet.getObject(1), target);
+                }
+            });
+
+            for (Map.Entry<Object, Integer> entry : misplaced.entrySet()) {
+                Object key = entry.getKey();
+                Map<String, Object> row = sourceJdbc.queryForMap(
+                        "SELECT * FROM " + table + " WHERE " + keyColumn + " = ?", key);
+                excludedColumns.forEach(column -> row.keySet().removeIf(name -> name.equalsIgnoreCase(column)));
+
+                JdbcTemplate targetJdbc = jdbc(entry.getValue());
+                Integer existing = targetJdbc.queryForObject(
+                        "SELECT COUNT(*) FROM " + table + " WHERE " + keyColumn + " = ?", Integer.class, key);
+                if (existing == null || existing == 0) {
+                    new SimpleJdbcInsert(targetJdbc).withTableName(table).execute(row);
+                }
+                sourceJdbc.update("DELETE FROM " + table + " WHERE " + keyColumn + " = ?", key);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shardDataSources.get(shard));
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.domain.repository.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Maps accounts and customers to shards and runs repository calls against them.
+ * Bank accounts are placed by a hash of their account number and customers by a hash
+ * of their id. Calls that cannot be routed to a single shard are fanned out in parallel.
+ */
+@Component
+public class ShardRouter {
+
+    private final ShardDataSources shardDataSources;
+    private final ExecutorService fanOutExecutor;
+
+    /**
+     * Constructor for ShardRouter, injecting the shard datasources.
+     *
+     * @param shardDataSources The datasources of all shards.
+     * @param properties The sharding configuration.
+     */
+    @Autowired
+    public ShardRouter(ShardDataSources shardDataSources, ShardingProperties properties) {
+        this.shardDataSources = shardDataSources;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(Math.max(1, properties.getFanOutThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The number of shards.
+     */
+    public int shardCount() {
+        return shardDataSources.size();
+    }
+
+    /**
+     * @param accountNumber The unique account number.
+     * @return The shard holding the account.
+     */
+    public int shardForAccount(String accountNumber) {
+        return shardFor(mix(accountNumber.hashCode()), shardCount());
+    }
+
+    /**
+     * @param key A string key stored by value, such as a claimed DNI.
+     * @return The shard holding the key.
+     */
+    public int shardForKey(String key) {
+        return shardFor(mix(key.hashCode()), shardCount());
+    }
+
+    /**
+     * @param customerId The customer id.
+     * @return The shard holding the customer.
+     */
+    public int shardForCustomer(Long customerId) {
+        return shardFor(mix(customerId), shardCount());
+    }
+
+    /**
+     * Runs an action on the current thread against the shard of an account.
+     *
+     * @param accountNumber The unique account number.
+     * @param action The repository calls to run.
+     * @return The result of the action.
+     */
+    public <T> T onAccountShard(String accountNumber, Supplier<T> action) {
+        return ShardContext.call(shardForAccount(accountNumber), action);
+    }
+
+    /**
+     * Runs an action on the current thread against the shard of a customer.
+     *
+     * @param customerId The customer id.
+     * @param action The repository calls to run.
+     * @return The result of the action.
+     */
+    public <T> T onCustomerShard(Long customerId, Supplier<T> action) {
+        return ShardContext.call(shardForCustomer(customerId), action);
+    }
+
+    /**
+     * Runs an action against one shard on a separate thread, outside any transaction bound
+     * to the caller. Used to read from another shard in the middle of a transaction.
+     * The caller's read routing state is carried over to the worker thread.
+     *
+     * @param shard The shard to query.
+     * @param action The repository calls to run.
+     * @return The result of the action.
+     */
+    public <T> T onShardDetached(int shard, Supplier<T> action) {
+        ReplicaContext.Snapshot snapshot = ReplicaContext.capture();
+        return join(CompletableFuture.supplyAsync(
+                () -> snapshot.call(() -> ShardContext.call(shard, action)), fanOutExecutor));
+    }
+
+    /**
+     * Runs an action against every shard in parallel, carrying the caller's read routing
+     * state over to the worker threads.
+     *
+     * @param action The repository calls to run on each shard.
+     * @return The results of each shard, in shard order.
+     */
+    public <T> List<T> fanOut(Supplier<T> action) {
+        return fanOut(IntStream.range(0, shardCount()).boxed().collect(Collectors.toList()), shard -> action.get());
+    }
+
+    /**
+     * Runs an action against some shards in parallel, carrying the caller's read routing
+     * state over to the worker threads.
+     *
+     * @param shards The shards to query.
+     * @param action The repository calls to run, given the shard they run on.
+     * @return The results of each shard, in the iteration order of the given shards.
+     */
+    public <T> List<T> fanOut(Collection<Integer> shards, IntFunction<T> action) {
+        ReplicaContext.Snapshot snapshot = ReplicaContext.capture();
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> snapshot.call(() -> ShardContext.call(shard, () -> action.apply(shard))), fanOutExecutor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    /**
+     * Stops the fan-out threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.shutdown();
+    }
+
+    /**
+     * Computes the shard of a hashed key for a given number of shards.
+     *
+     * @param hash The mixed hash of the key.
+     * @param shardCount The number of shards.
+     * @return The shard in the range [0, shardCount).
+     */
+    static int shardFor(long hash, int shardCount) {
+        return (int) Math.floorMod(hash, (long) shardCount);
+    }
+
+    // Finalizers of MurmurHash3, spreading sequential keys evenly across shards
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    static long mix(int key) {
+        key ^= key >>> 16;
+        key *= 0x85ebca6b;
+        key ^= key >>> 13;
+        key *= 0xc2b2ae35;
+        key ^= key >>> 16;
+        return key;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
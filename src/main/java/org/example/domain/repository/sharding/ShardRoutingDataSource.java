@@ -0,0 +1,47 @@
+package org.example.domain.repository.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Datasource that routes each new connection to the shard selected in {@link ShardContext},
+ * and within that shard to a read replica when {@link ReplicaRouter} allows it.
+ * Connections obtained without a selected shard go to shard 0.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaRouter replicaRouter;
+
+    /**
+     * Constructor that sets the router deciding between primary and replicas.
+     *
+     * @param replicaRouter The replica router.
+     */
+    public ShardRoutingDataSource(ReplicaRouter replicaRouter) {
+        this.replicaRouter = replicaRouter;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer current = ShardContext.current();
+        int shard = current == null ? 0 : current;
+        int replica = replicaRouter.selectReplica(shard);
+        return replica < 0 ? primaryKey(shard) : replicaKey(shard, replica);
+    }
+
+    /**
+     * @param shard The shard number.
+     * @return The lookup key of the shard's primary.
+     */
+    static String primaryKey(int shard) {
+        return shard + "/primary";
+    }
+
+    /**
+     * @param shard The shard number.
+     * @param replica The replica index within the shard.
+     * @return The lookup key of the replica.
+     */
+    static String replicaKey(int shard, int replica) {
+        return shard + "/replica/" + replica;
+    }
+}
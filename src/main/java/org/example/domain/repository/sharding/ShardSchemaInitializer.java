@@ -0,0 +1,90 @@
+package org.example.domain.repository.sharding;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+
+/**
+ * Applies Hibernate's schema update to every shard other than shard 0. Hibernate only
+ * updates the schema through the default connection at startup, so this integrator keeps
+ * the mapping metadata and replays the update once per remaining shard. When replication
+ * is simulated the replicas receive no DDL from their primary, so they are updated too.
+ */
+@Component
+public class ShardSchemaInitializer implements Integrator {
+
+    private final ShardDataSources shardDataSources;
+    private final ReplicationProperties replicationProperties;
+    private final String ddlAuto;
+
+    private volatile Metadata metadata;
+    private volatile SessionFactoryServiceRegistry serviceRegistry;
+
+    /**
+     * Constructor for ShardSchemaInitializer.
+     *
+     * @param shardDataSources The datasources of all shards.
+     * @param replicationProperties The replication configuration.
+     * @param ddlAuto The configured Hibernate schema mode.
+     */
+    @Autowired
+    public ShardSchemaInitializer(ShardDataSources shardDataSources, ReplicationProperties replicationProperties,
+                                  @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        this.shardDataSources = shardDataSources;
+        this.replicationProperties = replicationProperties;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = metadata;
+        this.serviceRegistry = serviceRegistry;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = null;
+        this.serviceRegistry = null;
+    }
+
+    /**
+     * Updates the schema of shards 1..N-1, and of simulated replicas, once the application
+     * context is ready, before other listeners start querying the shards.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void updateShardSchemas() {
+        if (!"update".equals(ddlAuto) || metadata == null) {
+            return;
+        }
+        for (int shard = 1; shard < shardDataSources.size(); shard++) {
+            ShardContext.run(shard, this::updateSchema);
+        }
+        if (replicationProperties.getSimulatedDelayMillis() <= 0) {
+            return;
+        }
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            for (int replica = 0; replica < shardDataSources.replicas(shard).size(); replica++) {
+                int target = replica;
+                ShardContext.run(shard, () -> ReplicaContext.onReplica(target, this::updateSchema));
+            }
+        }
+    }
+
+    private void updateSchema() {
+        new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata, serviceRegistry);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.domain.repository.sharding;
+
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configures the shard and replica datasources and the routing datasource used by JPA.
+ * The routing datasource is wrapped in a lazy connection proxy so that the physical
+ * connection of a transaction is chosen at its first statement, after the service
+ * has selected a shard, rather than when the transaction begins.
+ */
+@Configuration
+public class ShardingConfig {
+
+    /**
+     * Creates one datasource per configured shard and replica, or a single shard from
+     * {@code spring.datasource} when no shards are configured.
+     *
+     * @param properties The sharding configuration.
+     * @param dataSourceProperties The default datasource configuration.
+     * @return The datasources of all shards.
+     */
+    @Bean
+    public ShardDataSources shardDataSources(ShardingProperties properties, DataSourceProperties dataSourceProperties) {
+        List<DataSource> dataSources = new ArrayList<>();
+        List<List<DataSource>> replicas = new ArrayList<>();
+        if (properties.getShards().isEmpty()) {
+            dataSources.add(dataSourceProperties.initializeDataSourceBuilder().build());
+            replicas.add(List.of());
+        }
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            dataSources.add(build(shard));
+            List<DataSource> shardReplicas = new ArrayList<>();
+            for (ShardingProperties.Endpoint replica : shard.getReplicas()) {
+                shardReplicas.add(build(replica));
+            }
+            replicas.add(shardReplicas);
+        }
+        return new ShardDataSources(dataSources, replicas);
+    }
+
+    /**
+     * Creates the datasource used by JPA, routing every connection to the selected shard
+     * and, for read-only work, to one of its replicas.
+     *
+     * @param shardDataSources The datasources of all shards.
+     * @param replicaRouter The router deciding between primary and replicas.
+     * @return The routing datasource.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources, ReplicaRouter replicaRouter) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            targets.put(ShardRoutingDataSource.primaryKey(shard), shardDataSources.get(shard));
+            List<DataSource> replicas = shardDataSources.replicas(shard);
+            for (int replica = 0; replica < replicas.size(); replica++) {
+                targets.put(ShardRoutingDataSource.replicaKey(shard, replica), replicas.get(replica));
+            }
+        }
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(replicaRouter);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(shardDataSources.get(0));
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Registers the schema initializer with Hibernate so it receives the mapping metadata.
+     *
+     * @param shardSchemaInitializer The integrator replaying schema updates on every shard.
+     * @return The customizer adding the integrator to the Hibernate settings.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaInitializer shardSchemaInitializer) {
+        return hibernateProperties -> hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(shardSchemaInitializer));
+    }
+
+    private static DataSource build(ShardingProperties.Endpoint endpoint) {
+        DataSourceBuilder<?> builder = DataSourceBuilder.create()
+                .url(endpoint.getUrl())
+                .username(endpoint.getUsername())
+                .password(endpoint.getPassword());
+        if (endpoint.getDriverClassName() != null) {
+            builder.driverClassName(endpoint.getDriverClassName());
+        }
+        return builder.build();
+    }
+}
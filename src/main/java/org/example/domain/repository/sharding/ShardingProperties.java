@@ -0,0 +1,96 @@
+package org.example.domain.repository.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the shard datasources, bound from the {@code bank.sharding} properties.
+ * When no shards are listed the application runs on the single {@code spring.datasource}.
+ */
+@Component
+@ConfigurationProperties(prefix = "bank.sharding")
+public class ShardingProperties {
+
+    private List<Shard> shards = new ArrayList<>();
+
+    // Threads used to query shards in parallel
+    private int fanOutThreads = 8;
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public int getFanOutThreads() {
+        return fanOutThreads;
+    }
+
+    public void setFanOutThreads(int fanOutThreads) {
+        this.fanOutThreads = fanOutThreads;
+    }
+
+    /**
+     * Connection settings of a single database.
+     */
+    public static class Endpoint {
+
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getDriverClassName() {
+            return driverClassName;
+        }
+
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+    }
+
+    /**
+     * Connection settings of a shard's primary and its read replicas.
+     */
+    public static class Shard extends Endpoint {
+
+        private List<Endpoint> replicas = new ArrayList<>();
+
+        public List<Endpoint> getReplicas() {
+            return replicas;
+        }
+
+        public void setReplicas(List<Endpoint> replicas) {
+            this.replicas = replicas;
+        }
+    }
+}
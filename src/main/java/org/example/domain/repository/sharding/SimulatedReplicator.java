@@ -0,0 +1,154 @@
+package org.example.domain.repository.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stand-in for database replication when running against embedded databases. It copies
+ * the tables served from replicas from every primary to its replicas, applying each copy
+ * only once it is older than the configured delay, so replicas trail their primary the
+ * way asynchronous replicas do. Every copy is a full snapshot, which is only meant for
+ * the small data sets of local runs.
+ */
+@Component
+@ConditionalOnExpression("${bank.replication.simulated-delay-millis:0} > 0")
+public class SimulatedReplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulatedReplicator.class);
+
+    // Tables read by read-only service methods, plus the heartbeat used to measure lag
+    private static final List<String> TABLES = List.of("customers", "bank_accounts", ReplicaLagMonitor.HEARTBEAT_TABLE);
+
+    private final ShardDataSources shardDataSources;
+    private final ReplicationProperties properties;
+    private final List<Deque<Snapshot>> pending = new ArrayList<>();
+
+    /**
+     * Constructor for SimulatedReplicator, injecting the shard datasources.
+     *
+     * @param shardDataSources The datasources of all shards and replicas.
+     * @param properties The replication configuration.
+     */
+    @Autowired
+    public SimulatedReplicator(ShardDataSources shardDataSources, ReplicationProperties properties) {
+        this.shardDataSources = shardDataSources;
+        this.properties = properties;
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            pending.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Creates the heartbeat table on every replica, since replicas receive no DDL from their primary.
+     */
+    @PostConstruct
+    public void createHeartbeatTables() {
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            for (DataSource replica : shardDataSources.replicas(shard)) {
+                ReplicaLagMonitor.createHeartbeatTable(new JdbcTemplate(replica));
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of every primary and applies the newest snapshot that is older than
+     * the simulated delay to its replicas.
+     */
+    @Scheduled(fixedDelayString = "${bank.replication.simulated-interval-millis:200}")
+    public synchronized void replicate() {
+        long now = System.currentTimeMillis();
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            List<DataSource> replicas = shardDataSources.replicas(shard);
+            if (replicas.isEmpty()) {
+                continue;
+            }
+            Deque<Snapshot> shardPending = pending.get(shard);
+            try {
+                shardPending.addLast(takeSnapshot(shardDataSources.get(shard), now));
+            } catch (DataAccessException e) {
+                log.debug("Could not snapshot shard {}, schema may not be ready yet", shard, e);
+            }
+            Snapshot due = null;
+            long cutoff = now - properties.getSimulatedDelayMillis();
+            while (!shardPending.isEmpty() && shardPending.peekFirst().takenAtMillis <= cutoff) {
+                due = shardPending.pollFirst();
+            }
+            if (due == null) {
+                continue;
+            }
+            for (int replica = 0; replica < replicas.size(); replica++) {
+                try {
+                    apply(due, replicas.get(replica));
+                } catch (DataAccessException e) {
+                    log.warn("Could not apply snapshot to replica {} of shard {}", replica, shard, e);
+                }
+            }
+        }
+    }
+
+    private Snapshot takeSnapshot(DataSource primary, long now) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(primary);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(primary));
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+            for (String table : TABLES) {
+                rows.put(table, jdbcTemplate.queryForList("SELECT * FROM " + table));
+            }
+            return new Snapshot(now, rows);
+        });
+    }
+
+    private void apply(Snapshot snapshot, DataSource replica) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+        new TransactionTemplate(new DataSourceTransactionManager(replica)).executeWithoutResult(status -> {
+            for (Map.Entry<String, List<Map<String, Object>>> table : snapshot.rows.entrySet()) {
+                jdbcTemplate.update("DELETE FROM " + table.getKey());
+                List<Map<String, Object>> rows = table.getValue();
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                List<String> columns = new ArrayList<>(rows.get(0).keySet());
+                String sql = "INSERT INTO " + table.getKey() + " (" + String.join(", ", columns) + ") VALUES ("
+                        + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+                List<Object[]> values = new ArrayList<>(rows.size());
+                for (Map<String, Object> row : rows) {
+                    values.add(columns.stream().map(row::get).toArray());
+                }
+                jdbcTemplate.batchUpdate(sql, values);
+            }
+        });
+    }
+
+    /**
+     * The contents of the replicated tables of one primary at a point in time.
+     */
+    private static final class Snapshot {
+
+        private final long takenAtMillis;
+        private final Map<String, List<Map<String, Object>>> rows;
+
+        private Snapshot(long takenAtMillis, Map<String, List<Map<String, Object>>> rows) {
+            this.takenAtMillis = takenAtMillis;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.domain.repository.sharding;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Generates globally unique, time-ordered ids without a database round trip, so the shard
+ * of a new entity is known before it is inserted. Ids are composed of a 41-bit timestamp,
+ * a 10-bit node id (setting {@code bank.node-id}) and a 12-bit per-millisecond sequence.
+ */
+public class SnowflakeIdGenerator implements IdentifierGenerator, Configurable {
+
+    public static final String NODE_ID_SETTING = "bank.node-id";
+
+    // 2024-01-01T00:00:00Z
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private long nodeId;
+    private long lastMillis = -1;
+    private long sequence;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(NODE_ID_SETTING);
+        this.nodeId = setting == null ? 0 : Long.parseLong(setting.toString()) & ((1L << NODE_BITS) - 1);
+    }
+
+    @Override
+    public synchronized Serializable generate(SharedSessionContractImplementor session, Object object) {
+        // Never move backwards if the clock does
+        long now = Math.max(System.currentTimeMillis(), lastMillis);
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                now = lastMillis + 1;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return ((now - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
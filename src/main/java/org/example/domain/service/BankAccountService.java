@@ -2,12 +2,23 @@ package org.example.domain.service;
 
 import org.example.domain.model.BankAccount;
 import org.example.domain.model.Customer;
+import org.example.domain.model.IdempotencyRecord;
+import org.example.domain.model.OutboxEvent;
 import org.example.domain.repository.BankAccountRepository;
 import org.example.domain.repository.CustomerRepository;
+import org.example.domain.repository.sharding.ReplicaContext;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.example.domain.service.idempotency.DuplicateRequestException;
+import org.example.domain.service.idempotency.IdempotencyService;
+import org.example.domain.service.outbox.OutboxService;
+import org.example.domain.service.velocity.VelocityLimitCheck;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Service class for handling bank account operations. Provides methods for
@@ -18,17 +29,31 @@ public class BankAccountService {
 
     private final BankAccountRepository bankAccountRepository;
     private final CustomerRepository customerRepository;
+    private final VelocityLimitCheck velocityLimitCheck;
+    private final IdempotencyService idempotencyService;
+    private final OutboxService outboxService;
+    private final ShardRouter shardRouter;
 
     /**
      * Constructor for BankAccountService, injecting the required repositories.
      * 
      * @param bankAccountRepository Repository for bank account data access.
      * @param customerRepository Repository for customer data access.
+     * @param velocityLimitCheck Check applied to cap withdrawal frequency and volume.
+     * @param idempotencyService Service that deduplicates retried operations.
+     * @param outboxService Service recording events for downstream systems.
+     * @param shardRouter Router selecting the shard of each account and customer.
      */
     @Autowired
-    public BankAccountService(BankAccountRepository bankAccountRepository, CustomerRepository customerRepository) {
+    public BankAccountService(BankAccountRepository bankAccountRepository, CustomerRepository customerRepository,
+                              VelocityLimitCheck velocityLimitCheck, IdempotencyService idempotencyService,
+                              OutboxService outboxService, ShardRouter shardRouter) {
         this.bankAccountRepository = bankAccountRepository;
         this.customerRepository = customerRepository;
+        this.velocityLimitCheck = velocityLimitCheck;
+        this.idempotencyService = idempotencyService;
+        this.outboxService = outboxService;
+        this.shardRouter = shardRouter;
     }
 
     /**
@@ -39,13 +64,23 @@ public class BankAccountService {
      * @return The newly created and saved bank account.
      * @throws IllegalArgumentException if the customer is not found.
      */
+    @Transactional
     public BankAccount openBankAccount(Long customerId, BankAccount.AccountType accountType) {
-        Customer customer = customerRepository.findById(customerId)
+        // The customer may live on another shard than the new account, so it is read outside this
+        // transaction; it is not a replica read, so a customer registered a moment ago is found
+        Customer customer = shardRouter.onShardDetached(shardRouter.shardForCustomer(customerId),
+                        () -> customerRepository.findById(customerId))
                 .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
         BankAccount account = new BankAccount(accountType);
         account.setCustomer(customer);
-        customer.addBankAccount(account);
-        return bankAccountRepository.save(account);
+        return shardRouter.onAccountShard(account.getAccountNumber(), () -> {
+            BankAccount saved = bankAccountRepository.save(account);
+            outboxService.record(OutboxEvent.EventType.ACCOUNT_OPENED, saved.getAccountNumber(), Map.of(
+                    "accountNumber", saved.getAccountNumber(),
+                    "customerId", customerId,
+                    "accountType", saved.getAccountType().name()));
+            return saved;
+        });
     }
 
     /**
@@ -56,28 +91,80 @@ public class BankAccountService {
      * @return The updated bank account after the deposit.
      * @throws IllegalArgumentException if the account is not found or amount is invalid.
      */
+    @Transactional
     public BankAccount deposit(String accountNumber, double amount) {
-        BankAccount account = bankAccountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found"));
-        account.deposit(amount);
-        return bankAccountRepository.save(account);
+        return shardRouter.onAccountShard(accountNumber, () -> {
+            BankAccount account = bankAccountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+            account.deposit(amount);
+            BankAccount saved = bankAccountRepository.save(account);
+            recordMovement(OutboxEvent.EventType.DEPOSIT, saved, amount);
+            return saved;
+        });
+    }
+
+    /**
+     * Deposits money into a bank account at most once per idempotency key.
+     * A retried request with the same key returns the original result without depositing again.
+     * 
+     * @param accountNumber The unique account number.
+     * @param amount The amount to deposit, must be positive.
+     * @param idempotencyKey The client-supplied key identifying this request.
+     * @return The updated bank account after the deposit.
+     * @throws IllegalArgumentException if the account is not found, amount is invalid or the key was reused.
+     * @throws DuplicateRequestException if a request with the same key is still being applied.
+     */
+    @Transactional
+    public BankAccount deposit(String accountNumber, double amount, String idempotencyKey) {
+        return shardRouter.onAccountShard(accountNumber, () -> idempotencyService.execute(idempotencyKey,
+                IdempotencyRecord.Operation.DEPOSIT, accountNumber, amount, () -> deposit(accountNumber, amount)));
     }
 
     /**
-     * Withdraws money from a bank account, applying business rules for balance and overdraft.
+     * Withdraws money from a bank account, applying business rules for balance, overdraft
+     * and withdrawal velocity limits.
      * 
      * @param accountNumber The unique account number.
      * @param amount The amount to withdraw, must be positive.
      * @return The updated bank account after the withdrawal.
      * @throws IllegalArgumentException if the account is not found or rules are violated.
      */
+    @Transactional
     public BankAccount withdraw(String accountNumber, double amount) {
-        BankAccount account = bankAccountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found"));
-        if (!account.withdraw(amount)) {
-            throw new IllegalArgumentException("Insufficient funds or overdraft limit exceeded.");
-        }
-        return bankAccountRepository.save(account);
+        return shardRouter.onAccountShard(accountNumber, () -> {
+            BankAccount account = bankAccountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+            VelocityLimitCheck.Reservation reservation = velocityLimitCheck.tryAcquire(account, amount);
+            if (!reservation.isGranted()) {
+                throw new IllegalArgumentException("Withdrawal velocity limit exceeded.");
+            }
+            // A withdrawal that is rejected or rolled back no longer counts against the limits
+            TransactionCallbacks.afterRollback(reservation::release);
+            if (!account.withdraw(amount)) {
+                reservation.release();
+                throw new IllegalArgumentException("Insufficient funds or overdraft limit exceeded.");
+            }
+            BankAccount saved = bankAccountRepository.save(account);
+            recordMovement(OutboxEvent.EventType.WITHDRAWAL, saved, amount);
+            return saved;
+        });
+    }
+
+    /**
+     * Withdraws money from a bank account at most once per idempotency key.
+     * A retried request with the same key returns the original result without withdrawing again.
+     * 
+     * @param accountNumber The unique account number.
+     * @param amount The amount to withdraw, must be positive.
+     * @param idempotencyKey The client-supplied key identifying this request.
+     * @return The updated bank account after the withdrawal.
+     * @throws IllegalArgumentException if the account is not found, rules are violated or the key was reused.
+     * @throws DuplicateRequestException if a request with the same key is still being applied.
+     */
+    @Transactional
+    public BankAccount withdraw(String accountNumber, double amount, String idempotencyKey) {
+        return shardRouter.onAccountShard(accountNumber, () -> idempotencyService.execute(idempotencyKey,
+                IdempotencyRecord.Operation.WITHDRAW, accountNumber, amount, () -> withdraw(accountNumber, amount)));
     }
 
     /**
@@ -87,9 +174,52 @@ public class BankAccountService {
      * @return The current balance of the account.
      * @throws IllegalArgumentException if the account is not found.
      */
+    @Transactional(readOnly = true)
     public double getBalance(String accountNumber) {
-        BankAccount account = bankAccountRepository.findByAccountNumber(accountNumber)
+        BankAccount account = ReplicaContext.replicaReads(() -> shardRouter.onAccountShard(accountNumber,
+                        () -> bankAccountRepository.findByAccountNumber(accountNumber)))
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
         return account.getBalance();
     }
+
+    /**
+     * Retrieves all bank accounts of a customer, querying every shard in parallel.
+     * 
+     * @param customerId The ID of the customer who owns the accounts.
+     * @return The customer's bank accounts across all shards.
+     */
+    @Transactional(readOnly = true)
+    public List<BankAccount> getBankAccounts(Long customerId) {
+        return ReplicaContext.replicaReads(
+                        () -> shardRouter.fanOut(() -> bankAccountRepository.findByCustomerId(customerId))).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves the bank accounts of a customer that hold a positive balance.
+     *
+     * @param customerId The ID of the customer who owns the accounts.
+     * @return The customer's accounts with a balance greater than zero, across all shards.
+     */
+    @Transactional(readOnly = true)
+    public List<BankAccount> getPositiveBalanceAccounts(Long customerId) {
+        return getBankAccounts(customerId).stream()
+                .filter(account -> account.getBalance() > 0)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Records a deposit or withdrawal in the outbox.
+     *
+     * @param eventType The type of movement.
+     * @param account The account after the movement.
+     * @param amount The amount moved.
+     */
+    private void recordMovement(OutboxEvent.EventType eventType, BankAccount account, double amount) {
+        outboxService.record(eventType, account.getAccountNumber(), Map.of(
+                "accountNumber", account.getAccountNumber(),
+                "amount", amount,
+                "balance", account.getBalance()));
+    }
 }
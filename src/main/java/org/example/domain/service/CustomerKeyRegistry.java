@@ -0,0 +1,188 @@
+package org.example.domain.service;
+
+import org.example.domain.model.CustomerKey;
+import org.example.domain.repository.CustomerKeyRepository;
+import org.example.domain.repository.CustomerRepository;
+import org.example.domain.repository.CustomerSearchFields;
+import org.example.domain.repository.sharding.ShardContext;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps DNIs and email addresses unique across all shards. Before a customer is written, each
+ * unique value is claimed in its own short transaction on the shard of the value, where a
+ * concurrent claim of the same value fails on the primary key. Claims are released when the
+ * customer's transaction rolls back or the customer is deleted; a claim left behind by a
+ * crash is taken over once it is old enough and its customer does not exist.
+ */
+@Component
+public class CustomerKeyRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerKeyRegistry.class);
+
+    // Longer than any registration transaction, so a claim this old without its customer was abandoned
+    private static final Duration ABANDONED_AFTER = Duration.ofMinutes(10);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final int BACKFILL_PAGE_SIZE = 1_000;
+
+    private final CustomerKeyRepository customerKeyRepository;
+    private final CustomerRepository customerRepository;
+    private final ShardRouter shardRouter;
+
+    /**
+     * Constructor for CustomerKeyRegistry, injecting the required repositories.
+     *
+     * @param customerKeyRepository Repository for claimed keys.
+     * @param customerRepository Repository used to check whether a claim's customer exists.
+     * @param shardRouter Router selecting the shard of each key and customer.
+     */
+    @Autowired
+    public CustomerKeyRegistry(CustomerKeyRepository customerKeyRepository, CustomerRepository customerRepository,
+                               ShardRouter shardRouter) {
+        this.customerKeyRepository = customerKeyRepository;
+        this.customerRepository = customerRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Claims a value for a customer. The claim commits immediately, independently of the
+     * caller's transaction; claiming a value the customer already holds has no effect.
+     *
+     * @param type The field the value belongs to.
+     * @param value The value to claim.
+     * @param customerId The customer claiming the value.
+     * @throws IllegalArgumentException if another customer holds the value.
+     */
+    public void claim(CustomerKey.KeyType type, String value, Long customerId) {
+        String key = CustomerKey.keyOf(type, value);
+        int shard = shardRouter.shardForKey(key);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Optional<CustomerKey> holder = shardRouter.onShardDetached(shard, () -> tryInsert(key, customerId));
+            if (holder.isEmpty()) {
+                // The conflicting claim was released in the meantime
+                continue;
+            }
+            CustomerKey claim = holder.get();
+            if (claim.getCustomerId().equals(customerId)) {
+                return;
+            }
+            if (!isAbandoned(claim)) {
+                break;
+            }
+            if (shardRouter.onShardDetached(shard, () -> customerKeyRepository.takeOver(key, claim.getCustomerId(),
+                    customerId, Instant.now())) == 1) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException((type == CustomerKey.KeyType.DNI ? "DNI" : "Email") + " already exists.");
+    }
+
+    /**
+     * Releases a value if it is still claimed by the customer.
+     *
+     * @param type The field the value belongs to.
+     * @param value The claimed value.
+     * @param customerId The customer holding the claim.
+     */
+    public void release(CustomerKey.KeyType type, String value, Long customerId) {
+        String key = CustomerKey.keyOf(type, value);
+        shardRouter.onShardDetached(shardRouter.shardForKey(key), () -> customerKeyRepository.deleteClaim(key,
+                customerId));
+    }
+
+    /**
+     * Finds the customer holding a value. Runs on the shard of the value, outside the
+     * caller's transaction.
+     *
+     * @param type The field the value belongs to.
+     * @param value The claimed value.
+     * @return The id of the customer holding the claim, or empty if the value is not claimed.
+     */
+    public Optional<Long> holderOf(CustomerKey.KeyType type, String value) {
+        String key = CustomerKey.keyOf(type, value);
+        return shardRouter.onShardDetached(shardRouter.shardForKey(key), () -> customerKeyRepository.findById(key))
+                .map(CustomerKey::getCustomerId);
+    }
+
+    /**
+     * Claims the DNI and email of every existing customer, for databases holding customers
+     * registered before values were claimed. Values another customer already holds are logged
+     * as conflicts to be resolved by hand. Safe to repeat; meant to run with the application
+     * stopped, e.g. through {@link org.example.ShardRebalanceTool}.
+     *
+     * @return The number of customers checked and of conflicting values found.
+     */
+    public Map<String, Integer> backfill() {
+        int customers = 0;
+        int conflicts = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            Long lastId = Long.MIN_VALUE;
+            List<CustomerSearchFields> page;
+            do {
+                Long after = lastId;
+                page = ShardContext.call(shard, () -> customerRepository.findByIdGreaterThanOrderByIdAsc(after,
+                        PageRequest.of(0, BACKFILL_PAGE_SIZE)));
+                for (CustomerSearchFields customer : page) {
+                    conflicts += backfillClaim(CustomerKey.KeyType.DNI, customer.getDni(), customer.getId());
+                    conflicts += backfillClaim(CustomerKey.KeyType.EMAIL, customer.getEmail(), customer.getId());
+                    lastId = customer.getId();
+                }
+                customers += page.size();
+            } while (page.size() == BACKFILL_PAGE_SIZE);
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put("customers", customers);
+        result.put("conflicts", conflicts);
+        return result;
+    }
+
+    /**
+     * @return 1 if another customer holds the value, 0 once the customer holds it.
+     */
+    private int backfillClaim(CustomerKey.KeyType type, String value, Long customerId) {
+        try {
+            claim(type, value, customerId);
+            return 0;
+        } catch (IllegalArgumentException e) {
+            Long holderId = holderOf(type, value).orElse(null);
+            log.warn("{} {} of customer {} is already held by customer {}", type, value, customerId, holderId);
+            return 1;
+        }
+    }
+
+    /**
+     * Inserts a claim on the current shard.
+     *
+     * @return The claim now holding the key, or empty if it was released while inserting.
+     */
+    private Optional<CustomerKey> tryInsert(String key, Long customerId) {
+        try {
+            return Optional.of(customerKeyRepository.saveAndFlush(new CustomerKey(key, customerId)));
+        } catch (DataIntegrityViolationException e) {
+            return customerKeyRepository.findById(key);
+        }
+    }
+
+    private boolean isAbandoned(CustomerKey claim) {
+        if (claim.getCreatedAt().isAfter(Instant.now().minus(ABANDONED_AFTER))) {
+            return false;
+        }
+        Long holderId = claim.getCustomerId();
+        return !shardRouter.onShardDetached(shardRouter.shardForCustomer(holderId),
+                () -> customerRepository.existsById(holderId));
+    }
+}
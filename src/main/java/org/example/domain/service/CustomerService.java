@@ -1,31 +1,70 @@
 package org.example.domain.service;
 
 import org.example.domain.model.Customer;
+import org.example.domain.model.CustomerKey;
+import org.example.domain.model.OutboxEvent;
+import org.example.domain.repository.BankAccountRepository;
 import org.example.domain.repository.CustomerRepository;
+import org.example.domain.repository.sharding.ReplicaContext;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.example.domain.service.outbox.OutboxService;
+import org.example.domain.service.search.CustomerSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Service class for managing customer-related operations.
- * Provides methods to register, find, update, and delete customers.
+ * Provides methods to register, find, search, update, and delete customers.
  */
 @Service
 public class CustomerService {
 
+    private static final Logger log = LoggerFactory.getLogger(CustomerService.class);
+
+    private static final int MAX_CLEANUP_ATTEMPTS = 3;
+
     private final CustomerRepository customerRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final OutboxService outboxService;
+    private final ShardRouter shardRouter;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final CustomerKeyRegistry customerKeyRegistry;
 
     /**
-     * Constructor for CustomerService, injecting the required repository.
+     * Constructor for CustomerService, injecting the required repositories.
      *
      * @param customerRepository Repository for customer data access.
+     * @param bankAccountRepository Repository for bank account data access.
+     * @param outboxService Service recording events for downstream systems.
+     * @param shardRouter Router selecting the shard of each customer.
+     * @param customerSearchIndex In-memory index used to search customers.
+     * @param customerKeyRegistry Registry keeping DNIs and emails unique across shards.
      */
     @Autowired
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository, BankAccountRepository bankAccountRepository,
+                           OutboxService outboxService, ShardRouter shardRouter,
+                           CustomerSearchIndex customerSearchIndex, CustomerKeyRegistry customerKeyRegistry) {
         this.customerRepository = customerRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.outboxService = outboxService;
+        this.shardRouter = shardRouter;
+        this.customerSearchIndex = customerSearchIndex;
+        this.customerKeyRegistry = customerKeyRegistry;
     }
 
     /**
-     * Registers a new customer after validating unique DNI.
+     * Registers a new customer after claiming its DNI and email, which must be unique
+     * across all shards.
      *
      * @param firstName The customer's first name.
      * @param lastName The customer's last name.
@@ -34,15 +73,23 @@ public class CustomerService {
      * @return The newly created customer.
      * @throws IllegalArgumentException if any rule is not met
      */
+    @Transactional
     public Customer registerCustomer(String firstName, String lastName, String dni, String email) {
-        // Check DNI is unique
-        if (customerRepository.findByDni(dni).isPresent()) {
-            throw new IllegalArgumentException("DNI already exists.");
-        }
-
-        // Save the client
-        Customer customer = new Customer(firstName, lastName, dni, email);
-        return customerRepository.save(customer);
+        // The id is generated on save, the insert itself is flushed on the customer's shard
+        Customer customer = customerRepository.save(new Customer(firstName, lastName, dni, email));
+        claimKey(CustomerKey.KeyType.DNI, dni, customer.getId());
+        claimKey(CustomerKey.KeyType.EMAIL, email, customer.getId());
+        return shardRouter.onCustomerShard(customer.getId(), () -> {
+            outboxService.record(OutboxEvent.EventType.CUSTOMER_REGISTERED, String.valueOf(customer.getId()), Map.of(
+                    "customerId", customer.getId(),
+                    "firstName", customer.getFirstName(),
+                    "lastName", customer.getLastName(),
+                    "dni", customer.getDni(),
+                    "email", customer.getEmail()));
+            customerRepository.flush();
+            indexAfterCommit(customer);
+            return customer;
+        });
     }
 
     /**
@@ -52,54 +99,170 @@ public class CustomerService {
      * @return The found customer.
      * @throws IllegalArgumentException if the customer is not found.
      */
+    @Transactional(readOnly = true)
     public Customer getCustomerById(Long id) {
-        return customerRepository.findById(id)
+        return ReplicaContext.replicaReads(
+                        () -> shardRouter.onCustomerShard(id, () -> customerRepository.findById(id)))
                 .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
     }
 
      /**
-     * Finds a customer by their DNI.
+     * Finds a customer by their DNI. The DNI's claim names the customer, so only the shard of
+     * the claim and the shard of the customer are read.
      *
      * @param dni The unique DNI of the customer.
      * @return The found customer.
      * @throws IllegalArgumentException if no customer with the given DNI is found.
      */
+    @Transactional(readOnly = true)
     public Customer getCustomerByDni(String dni) {
-        return customerRepository.findByDni(dni)
+        return customerKeyRegistry.holderOf(CustomerKey.KeyType.DNI, dni)
+                .flatMap(id -> ReplicaContext.replicaReads(
+                        () -> shardRouter.onCustomerShard(id, () -> customerRepository.findById(id))))
+                .filter(customer -> customer.getDni().equals(dni))
                 .orElseThrow(() -> new IllegalArgumentException("Customer with given DNI not found"));
     }
 
     /**
-     * Updates the details of an existing customer.
+     * Searches customers by partial first name, last name, DNI or email.
+     *
+     * @param query The text to search for, e.g. part of a last name or a DNI prefix.
+     * @param limit The maximum number of customers to return.
+     * @return The matching customers, best match first.
+     */
+    @Transactional(readOnly = true)
+    public List<Customer> searchCustomers(String query, int limit) {
+        List<Long> ids = customerSearchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // Only the shards holding a match are queried, each for its own customers
+        Map<Integer, List<Long>> idsByShard = ids.stream()
+                .collect(Collectors.groupingBy(shardRouter::shardForCustomer));
+        Map<Long, Customer> found = ReplicaContext.replicaReads(() -> shardRouter.fanOut(idsByShard.keySet(),
+                        shard -> customerRepository.findAllById(idsByShard.get(shard)))).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(Customer::getId, Function.identity(), (first, second) -> first));
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Updates the details of an existing customer. A new email must not be held by another customer.
      *
      * @param id The ID of the customer to update.
      * @param firstName The updated first name.
      * @param lastName The updated last name.
      * @param email The updated email address.
      * @return The updated customer.
-     * @throws IllegalArgumentException if the customer is not found.
+     * @throws IllegalArgumentException if the customer is not found or the email is taken.
      */
+    @Transactional
     public Customer updateCustomer(Long id, String firstName, String lastName, String email) {
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
+        return shardRouter.onCustomerShard(id, () -> {
+            Customer customer = customerRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
+            String previousEmail = customer.getEmail();
 
-        customer.setFirstName(firstName);
-        customer.setLastName(lastName);
-        customer.setEmail(email);
+            customer.setFirstName(firstName);
+            customer.setLastName(lastName);
+            customer.setEmail(email);
 
-        return customerRepository.save(customer);
+            if (!CustomerKey.keyOf(CustomerKey.KeyType.EMAIL, previousEmail)
+                    .equals(CustomerKey.keyOf(CustomerKey.KeyType.EMAIL, email))) {
+                claimKey(CustomerKey.KeyType.EMAIL, email, id);
+                TransactionCallbacks.afterCommit(() -> releaseKey(CustomerKey.KeyType.EMAIL, previousEmail, id));
+            }
+            Customer saved = customerRepository.save(customer);
+            outboxService.record(OutboxEvent.EventType.CUSTOMER_UPDATED, String.valueOf(id), Map.of(
+                    "customerId", id,
+                    "firstName", saved.getFirstName(),
+                    "lastName", saved.getLastName(),
+                    "email", saved.getEmail()));
+            indexAfterCommit(saved);
+            return saved;
+        });
     }
 
     /**
-     * Deletes a customer by their ID.
+     * Deletes a customer by their ID. Bank accounts on the customer's shard are deleted in the
+     * same transaction, before the customer, since a database created before sharding still
+     * has a foreign key from accounts to customers. Accounts on other shards are removed once
+     * the deletion has committed; if that keeps failing they are left orphaned and logged,
+     * never the customer without them.
      *
      * @param id The ID of the customer to delete.
      * @throws IllegalArgumentException if the customer is not found.
      */
+    @Transactional
     public void deleteCustomer(Long id) {
-        if (!customerRepository.existsById(id)) {
-            throw new IllegalArgumentException("Customer not found");
+        int customerShard = shardRouter.shardForCustomer(id);
+        Customer customer = shardRouter.onCustomerShard(id, () -> {
+            Customer found = customerRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
+            bankAccountRepository.deleteByCustomerId(id);
+            customerRepository.delete(found);
+            outboxService.record(OutboxEvent.EventType.CUSTOMER_DELETED, String.valueOf(id), Map.of("customerId", id));
+            return found;
+        });
+        TransactionCallbacks.afterCommit(() -> {
+            customerSearchIndex.remove(id);
+            releaseKey(CustomerKey.KeyType.DNI, customer.getDni(), id);
+            releaseKey(CustomerKey.KeyType.EMAIL, customer.getEmail(), id);
+            deleteBankAccountsOf(id, customerShard);
+        });
+    }
+
+    /**
+     * Claims a unique value for a customer and releases it again if the current transaction rolls back.
+     */
+    private void claimKey(CustomerKey.KeyType type, String value, Long customerId) {
+        customerKeyRegistry.claim(type, value, customerId);
+        TransactionCallbacks.afterRollback(() -> releaseKey(type, value, customerId));
+    }
+
+    private void releaseKey(CustomerKey.KeyType type, String value, Long customerId) {
+        try {
+            customerKeyRegistry.release(type, value, customerId);
+        } catch (RuntimeException e) {
+            // The claim is taken over once it is abandoned long enough
+            log.warn("{} claim of customer {} could not be released", type, customerId, e);
         }
-        customerRepository.deleteById(id);
+    }
+
+    private void deleteBankAccountsOf(Long customerId, int customerShard) {
+        List<Integer> otherShards = IntStream.range(0, shardRouter.shardCount())
+                .filter(shard -> shard != customerShard)
+                .boxed()
+                .collect(Collectors.toList());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                shardRouter.fanOut(otherShards, shard -> bankAccountRepository.deleteByCustomerId(customerId));
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_CLEANUP_ATTEMPTS) {
+                    log.error("Bank accounts of deleted customer {} could not be removed and are left orphaned",
+                            customerId, e);
+                    return;
+                }
+                log.warn("Removing bank accounts of deleted customer {} failed, retrying", customerId, e);
+            }
+        }
+    }
+
+    /**
+     * Updates the search entry of a customer once the current transaction, if any, has committed.
+     *
+     * @param customer The saved customer.
+     */
+    private void indexAfterCommit(Customer customer) {
+        Long id = customer.getId();
+        String firstName = customer.getFirstName();
+        String lastName = customer.getLastName();
+        String dni = customer.getDni();
+        String email = customer.getEmail();
+        TransactionCallbacks.afterCommit(() -> customerSearchIndex.put(id, firstName, lastName, dni, email));
     }
 }
@@ -0,0 +1,16 @@
+package org.example.domain.service.idempotency;
+
+/**
+ * Thrown when a request arrives while another request with the same idempotency key is
+ * still being applied. The client should retry later to receive the original result.
+ */
+public class DuplicateRequestException extends IllegalStateException {
+
+    /**
+     * @param key The idempotency key in use.
+     * @param cause The failure raised by the concurrent insert of the key.
+     */
+    public DuplicateRequestException(String key, Throwable cause) {
+        super("A request with idempotency key " + key + " is already in progress; retry to get its result.", cause);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.domain.service.idempotency;
+
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.IdempotencyRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory store of recent idempotent results. Entries expire after a fixed TTL and the
+ * store never holds more than the configured number of entries. Since every entry has the
+ * same TTL, insertion order is also expiry order, so a FIFO queue drives eviction.
+ * Results are held and handed out as detached copies, so callers cannot change them.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final IdempotencyProperties properties;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructor for IdempotencyCache, injecting the cache configuration.
+     *
+     * @param properties The idempotency configuration.
+     */
+    @Autowired
+    public IdempotencyCache(IdempotencyProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the cached entry for a key if it has not expired.
+     *
+     * @param key The idempotency key.
+     * @return The cached entry, or null if absent or expired.
+     */
+    public Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAtMillis < System.currentTimeMillis()) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the result of an operation under its key, evicting expired and excess entries.
+     *
+     * @param record The record describing the operation.
+     * @param result The account returned by the operation.
+     */
+    public void put(IdempotencyRecord record, BankAccount result) {
+        Entry entry = new Entry(record, result.withBalance(result.getBalance()),
+                System.currentTimeMillis() + properties.getCacheTtlMillis());
+        if (entries.putIfAbsent(record.getId(), entry) == null) {
+            insertionOrder.add(entry);
+        }
+        evict();
+    }
+
+    /**
+     * @return The number of entries currently held in memory.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Entry head;
+        while ((head = insertionOrder.peek()) != null
+                && (head.expiresAtMillis < now || entries.size() > properties.getMaxCacheEntries())) {
+            if (insertionOrder.remove(head)) {
+                entries.remove(head.record.getId(), head);
+            }
+        }
+    }
+
+    /**
+     * A cached operation and the result it produced.
+     */
+    public static final class Entry {
+        private final IdempotencyRecord record;
+        private final BankAccount result;
+        private final long expiresAtMillis;
+
+        Entry(IdempotencyRecord record, BankAccount result, long expiresAtMillis) {
+            this.record = record;
+            this.result = result;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public IdempotencyRecord getRecord() {
+            return record;
+        }
+
+        /**
+         * @return A copy of the result, so changes by one caller are not seen by the next.
+         */
+        public BankAccount getResult() {
+            return result.withBalance(result.getBalance());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.domain.service.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of idempotency key handling, bound from the {@code bank.idempotency} properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "bank.idempotency")
+public class IdempotencyProperties {
+
+    // How long results stay in the in-memory cache
+    private long cacheTtlMillis = 10 * 60 * 1000L;
+
+    // Upper bound on the number of results held in memory
+    private int maxCacheEntries = 100_000;
+
+    // How long persisted keys are kept before being purged
+    private long retentionMillis = 7 * 24 * 60 * 60 * 1000L;
+
+    public long getCacheTtlMillis() {
+        return cacheTtlMillis;
+    }
+
+    public void setCacheTtlMillis(long cacheTtlMillis) {
+        this.cacheTtlMillis = cacheTtlMillis;
+    }
+
+    public int getMaxCacheEntries() {
+        return maxCacheEntries;
+    }
+
+    public void setMaxCacheEntries(int maxCacheEntries) {
+        this.maxCacheEntries = maxCacheEntries;
+    }
+
+    public long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    public void setRetentionMillis(long retentionMillis) {
+        this.retentionMillis = retentionMillis;
+    }
+}
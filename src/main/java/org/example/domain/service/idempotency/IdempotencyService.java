@@ -0,0 +1,144 @@
+package org.example.domain.service.idempotency;
+
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.IdempotencyRecord;
+import org.example.domain.repository.BankAccountRepository;
+import org.example.domain.repository.IdempotencyRecordRepository;
+import org.example.domain.repository.sharding.ShardContext;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.example.domain.service.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Service that applies account operations at most once per idempotency key.
+ * Recent keys are answered from the in-memory cache; older keys fall back to the
+ * persisted {@link IdempotencyRecord} table.
+ */
+@Service
+public class IdempotencyService {
+
+    private final IdempotencyCache cache;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final IdempotencyProperties properties;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate keyLookup;
+
+    /**
+     * Constructor for IdempotencyService, injecting the cache and required repositories.
+     *
+     * @param cache In-memory store of recent results.
+     * @param idempotencyRecordRepository Repository for persisted idempotency keys.
+     * @param bankAccountRepository Repository used to answer retries of expired keys.
+     * @param properties The idempotency configuration.
+     * @param shardRouter Router providing the shards to purge.
+     * @param transactionManager Transaction manager used to look up keys outside a failed transaction.
+     */
+    @Autowired
+    public IdempotencyService(IdempotencyCache cache, IdempotencyRecordRepository idempotencyRecordRepository,
+                              BankAccountRepository bankAccountRepository, IdempotencyProperties properties,
+                              ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.cache = cache;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.keyLookup = new TransactionTemplate(transactionManager);
+        this.keyLookup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.keyLookup.setReadOnly(true);
+    }
+
+    /**
+     * Applies an operation unless its key was already used, in which case the earlier
+     * result is returned. Must be called within the transaction that applies the operation,
+     * on the shard of the account, so the key and the account change are committed together.
+     *
+     * @param key The client-supplied idempotency key.
+     * @param operation The operation being applied.
+     * @param accountNumber The account the operation targets.
+     * @param amount The amount of the operation.
+     * @param action The operation to apply if the key is new.
+     * @return The result of the operation, or the original result for a retried key.
+     * @throws IllegalArgumentException if the key is blank, too long or was used for a different request.
+     * @throws DuplicateRequestException if a request with the same key is being applied concurrently.
+     */
+    public BankAccount execute(String key, IdempotencyRecord.Operation operation, String accountNumber,
+                               double amount, Supplier<BankAccount> action) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("Idempotency key is required.");
+        }
+        if (key.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Idempotency key must not exceed " + IdempotencyRecord.MAX_KEY_LENGTH + " characters.");
+        }
+
+        IdempotencyCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            checkSameRequest(cached.getRecord(), operation, accountNumber, amount);
+            return cached.getResult();
+        }
+
+        Optional<IdempotencyRecord> persisted = idempotencyRecordRepository.findById(key);
+        if (persisted.isPresent()) {
+            checkSameRequest(persisted.get(), operation, accountNumber, amount);
+            // The original result has left the cache; answer with the balance it produced
+            BankAccount account = bankAccountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+            Double resultBalance = persisted.get().getResultBalance();
+            return resultBalance == null ? account : account.withBalance(resultBalance);
+        }
+
+        IdempotencyRecord record;
+        try {
+            record = idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, operation, accountNumber,
+                    amount));
+        } catch (DataIntegrityViolationException e) {
+            // Only a concurrent request that inserted the same key first makes this a duplicate
+            if (isKeyRecorded(key)) {
+                throw new DuplicateRequestException(key, e);
+            }
+            throw e;
+        }
+        BankAccount result = action.get();
+        // The record is managed, so the balance is written when the transaction flushes
+        record.setResultBalance(result.getBalance());
+        TransactionCallbacks.afterCommit(() -> cache.put(record, result));
+        return result;
+    }
+
+    /**
+     * Removes persisted keys older than the configured retention period from every shard.
+     */
+    @Scheduled(fixedDelayString = "${bank.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        Instant cutoff = Instant.now().minusMillis(properties.getRetentionMillis());
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            ShardContext.run(shard, () -> idempotencyRecordRepository.deleteCreatedBefore(cutoff));
+        }
+    }
+
+    /**
+     * Looks a key up in a transaction of its own, as the current one cannot run queries
+     * after its failed insert. It runs on the current shard.
+     */
+    private boolean isKeyRecorded(String key) {
+        return Boolean.TRUE.equals(keyLookup.execute(status -> idempotencyRecordRepository.existsById(key)));
+    }
+
+    private void checkSameRequest(IdempotencyRecord record, IdempotencyRecord.Operation operation,
+                                  String accountNumber, double amount) {
+        if (!record.matches(operation, accountNumber, amount)) {
+            throw new IllegalArgumentException("Idempotency key already used for a different request.");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.domain.service.outbox;
+
+import org.example.domain.model.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Outbox sink that keeps published events in an in-memory queue. Intended for tests
+ * and local runs, enabled with {@code bank.outbox.sink=memory}.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final BlockingQueue<OutboxEvent> queue = new LinkedBlockingQueue<>();
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        queue.addAll(events);
+    }
+
+    /**
+     * @return The queue holding every event published so far.
+     */
+    public BlockingQueue<OutboxEvent> getQueue() {
+        return queue;
+    }
+
+    /**
+     * Removes and returns all events published so far.
+     *
+     * @return The drained events in publishing order.
+     */
+    public List<OutboxEvent> drain() {
+        List<OutboxEvent> events = new ArrayList<>();
+        queue.drainTo(events);
+        return events;
+    }
+}
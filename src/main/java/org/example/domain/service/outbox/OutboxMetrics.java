@@ -0,0 +1,76 @@
+package org.example.domain.service.outbox;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters describing the outbox relay: delivered events and batches, batch timing,
+ * failures and how far the relay lags behind the oldest pending event.
+ */
+@Component
+public class OutboxMetrics {
+
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong publishedBatches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastBatchMillis;
+    private volatile long lagMillis;
+
+    void recordBatch(int size, long elapsedMillis) {
+        publishedEvents.addAndGet(size);
+        publishedBatches.incrementAndGet();
+        lastBatchSize = size;
+        lastBatchMillis = elapsedMillis;
+    }
+
+    void recordFailure() {
+        failedBatches.incrementAndGet();
+    }
+
+    void recordLag(long relayLagMillis) {
+        lagMillis = relayLagMillis;
+    }
+
+    // Getters
+
+    public long getPublishedEvents() {
+        return publishedEvents.get();
+    }
+
+    public long getPublishedBatches() {
+        return publishedBatches.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public long getLastBatchMillis() {
+        return lastBatchMillis;
+    }
+
+    /**
+     * @return The age in milliseconds of the oldest event found by the last relay run, or 0 if the outbox was empty.
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMetrics{" +
+                "publishedEvents=" + getPublishedEvents() +
+                ", publishedBatches=" + getPublishedBatches() +
+                ", failedBatches=" + getFailedBatches() +
+                ", lastBatchSize=" + lastBatchSize +
+                ", lastBatchMillis=" + lastBatchMillis +
+                ", lagMillis=" + lagMillis +
+                '}';
+    }
+}
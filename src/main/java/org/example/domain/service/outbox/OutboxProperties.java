@@ -0,0 +1,67 @@
+package org.example.domain.service.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the outbox relay and its sinks, bound from the {@code bank.outbox} properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "bank.outbox")
+public class OutboxProperties {
+
+    // Sink that receives relayed events: "file" or "memory"
+    private String sink = "file";
+
+    // Maximum number of events read and published per batch
+    private int batchSize = 500;
+
+    // Maximum number of batches published per shard in one relay run; a backlog is resumed on the next run
+    private int maxBatchesPerRun = 20;
+
+    // Directory where the file sink writes its logs
+    private String fileDirectory = "outbox";
+
+    // Size at which the file sink rolls over to a new file
+    private long maxFileBytes = 64 * 1024 * 1024L;
+
+    public String getSink() {
+        return sink;
+    }
+
+    public void setSink(String sink) {
+        this.sink = sink;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxBatchesPerRun() {
+        return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    public String getFileDirectory() {
+        return fileDirectory;
+    }
+
+    public void setFileDirectory(String fileDirectory) {
+        this.fileDirectory = fileDirectory;
+    }
+
+    public long getMaxFileBytes() {
+        return maxFileBytes;
+    }
+
+    public void setMaxFileBytes(long maxFileBytes) {
+        this.maxFileBytes = maxFileBytes;
+    }
+}
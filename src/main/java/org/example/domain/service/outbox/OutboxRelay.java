@@ -0,0 +1,97 @@
+package org.example.domain.service.outbox;
+
+import org.example.domain.model.OutboxEvent;
+import org.example.domain.repository.OutboxEventRepository;
+import org.example.domain.repository.sharding.ShardContext;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Background relay that drains the outbox of every shard in id order and publishes events
+ * to the configured sink. Events are deleted only after the sink accepted them, so a crash
+ * between both steps leads to redelivery rather than loss. Each run publishes a bounded
+ * number of batches per shard, so a backlog does not hold up other scheduled tasks.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final OutboxProperties properties;
+    private final OutboxMetrics metrics;
+    private final ShardRouter shardRouter;
+
+    /**
+     * Constructor for OutboxRelay, injecting the outbox repository and sink.
+     *
+     * @param outboxEventRepository Repository for outbox event data access.
+     * @param sink The destination of relayed events.
+     * @param properties The outbox configuration.
+     * @param metrics Counters updated after every batch.
+     * @param shardRouter Router providing the shards to drain.
+     */
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink sink,
+                       OutboxProperties properties, OutboxMetrics metrics, ShardRouter shardRouter) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Publishes pending events of every shard, up to the configured number of batches each.
+     */
+    @Scheduled(fixedDelayString = "${bank.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        long maxLag = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            maxLag = Math.max(maxLag, ShardContext.call(shard, this::drain));
+        }
+        metrics.recordLag(maxLag);
+    }
+
+    /**
+     * Publishes pending events of the current shard batch by batch until its outbox is drained
+     * or the batches of this run are used up.
+     *
+     * @return The age in milliseconds of the oldest pending event, or 0 if the outbox was empty.
+     */
+    private long drain() {
+        int batchSize = properties.getBatchSize();
+        int batchesLeft = properties.getMaxBatchesPerRun();
+        long lag = 0;
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return lag;
+            }
+            long start = System.currentTimeMillis();
+            lag = Math.max(lag, start - batch.get(0).getCreatedAt().toEpochMilli());
+            try {
+                sink.publish(batch);
+            } catch (RuntimeException e) {
+                metrics.recordFailure();
+                log.warn("Outbox batch starting at id {} on shard {} could not be published, retrying later",
+                        batch.get(0).getId(), ShardContext.current(), e);
+                return lag;
+            }
+            List<Long> ids = batch.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+            outboxEventRepository.deleteDelivered(ids);
+            metrics.recordBatch(batch.size(), System.currentTimeMillis() - start);
+        } while (batch.size() == batchSize && --batchesLeft > 0);
+        return lag;
+    }
+}
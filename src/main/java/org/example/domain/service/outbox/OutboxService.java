@@ -0,0 +1,52 @@
+package org.example.domain.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.domain.model.OutboxEvent;
+import org.example.domain.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Service for recording domain events in the outbox table.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor for OutboxService, injecting the required repository.
+     *
+     * @param outboxEventRepository Repository for outbox event data access.
+     * @param objectMapper Mapper used to serialize event payloads.
+     */
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records an event in the outbox. Must run inside the transaction of the change it
+     * describes, so the event is committed or rolled back together with that change.
+     *
+     * @param eventType The type of event.
+     * @param aggregateId The identifier of the customer or account the event refers to.
+     * @param payload The event attributes, serialized as JSON.
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEvent.EventType eventType, String aggregateId, Map<String, Object> payload) {
+        try {
+            outboxEventRepository.save(new OutboxEvent(eventType, aggregateId, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize outbox event payload.", e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.domain.service.outbox;
+
+import org.example.domain.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination for events drained from the outbox. Delivery is at-least-once: a batch
+ * may be published again if the relay stops before the events are removed from the outbox.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes a batch of events in id order. Returning normally means the batch was delivered.
+     *
+     * @param events The events to publish.
+     * @throws RuntimeException if the batch could not be delivered.
+     */
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,103 @@
+package org.example.domain.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.domain.model.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Outbox sink that appends events as JSON lines to local files, rolling over to a new
+ * file once the current one reaches the configured size. Each batch is written with a
+ * single write and forced to disk before the relay removes it from the outbox.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.outbox.sink", havingValue = "file", matchIfMissing = true)
+public class RollingFileOutboxSink implements OutboxSink {
+
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private FileChannel channel;
+    private int fileIndex;
+
+    /**
+     * Constructor for RollingFileOutboxSink, injecting the sink configuration.
+     *
+     * @param properties The outbox configuration.
+     * @param objectMapper Mapper used to serialize events.
+     */
+    @Autowired
+    public RollingFileOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        try {
+            StringBuilder lines = new StringBuilder(events.size() * 256);
+            for (OutboxEvent event : events) {
+                lines.append(toJson(event)).append('\n');
+            }
+            FileChannel current = currentChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                current.write(buffer);
+            }
+            current.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write outbox events to file", e);
+        }
+    }
+
+    /**
+     * Closes the file currently being written.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to flush, the channel is forced after every batch
+            }
+            channel = null;
+        }
+    }
+
+    private String toJson(OutboxEvent event) throws IOException {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", event.getId());
+        node.put("eventType", event.getEventType().name());
+        node.put("aggregateId", event.getAggregateId());
+        node.put("createdAt", event.getCreatedAt().toString());
+        node.set("payload", objectMapper.readTree(event.getPayload()));
+        return objectMapper.writeValueAsString(node);
+    }
+
+    private FileChannel currentChannel() throws IOException {
+        if (channel != null && channel.size() < properties.getMaxFileBytes()) {
+            return channel;
+        }
+        close();
+        Path directory = Paths.get(properties.getFileDirectory());
+        Files.createDirectories(directory);
+        Path file = directory.resolve("outbox-" + System.currentTimeMillis() + "-" + (fileIndex++) + ".jsonl");
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return channel;
+    }
+}
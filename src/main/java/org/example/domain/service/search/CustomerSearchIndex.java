@@ -0,0 +1,486 @@
+package org.example.domain.service.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory n-gram index over the first name, last name, DNI and email of every customer.
+ * Each customer is a document numbered in insertion order; each gram of its text has a
+ * compressed posting list of those numbers (see {@link SearchText} and {@link PostingList}).
+ * A search intersects the posting lists of the query's grams, verifies the candidates
+ * against their stored text and keeps the best scored ones. Updates replace the document
+ * under a new number and leave the old one deleted.
+ * <p>
+ * Documents are split into {@link IndexSegment segments} of at most {@code 2^20} documents,
+ * appended to the last one. A background thread copies the live documents of sealed
+ * segments with many deletions, merging small neighbours, into a new segment while searches
+ * and updates go on, then swaps it in under the write lock. The swap costs one hash map update
+ * per live document of the new segment, which bounds the pause, and the heap taken by
+ * deleted documents stays within about a quarter of the index plus one segment.
+ * Texts are kept as bytes in a {@link TextStore}; a typical customer costs about 60 bytes
+ * of text, against about 100 for a String per document, and about 180 bytes in all, i.e.
+ * some 3.6 GB of heap for 20 million customers.
+ */
+@Component
+public class CustomerSearchIndex {
+
+    private static final char FIELD_SEPARATOR = '\n';
+    private static final byte FIELD_SEPARATOR_BYTE = (byte) FIELD_SEPARATOR;
+    private static final int MAX_TOKEN_SCORE = 4;
+
+    // A document reference is the segment's slot followed by the document's number in it
+    private static final int SEGMENT_BITS = 20;
+    private static final int MAX_SEGMENTS = 1 << (30 - SEGMENT_BITS);
+
+    private final CustomerSearchProperties properties;
+    private final int segmentSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService mergeExecutor;
+    private final AtomicBoolean mergeRequested = new AtomicBoolean();
+    private final Object mergeMonitor = new Object();
+
+    private final LongIntHashMap documentsByCustomer = new LongIntHashMap();
+    private final IndexSegment[] slots = new IndexSegment[MAX_SEGMENTS];
+    // In indexing order; the last one takes new documents
+    private final List<IndexSegment> segments = new ArrayList<>();
+
+    /**
+     * Constructor for CustomerSearchIndex, injecting the search configuration.
+     *
+     * @param properties The search configuration.
+     */
+    @Autowired
+    public CustomerSearchIndex(CustomerSearchProperties properties) {
+        this(properties, 1 << SEGMENT_BITS);
+    }
+
+    CustomerSearchIndex(CustomerSearchProperties properties, int segmentSize) {
+        if (segmentSize <= 0 || segmentSize > 1 << SEGMENT_BITS) {
+            throw new IllegalArgumentException("Segment size must be between 1 and " + (1 << SEGMENT_BITS));
+        }
+        this.properties = properties;
+        this.segmentSize = segmentSize;
+        this.mergeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops the merge thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        mergeExecutor.shutdown();
+    }
+
+    /**
+     * Adds a customer to the index, replacing the customer's previous entry if any.
+     *
+     * @param customerId The customer id.
+     * @param firstName The customer's first name.
+     * @param lastName The customer's last name.
+     * @param dni The customer's DNI.
+     * @param email The customer's email address.
+     */
+    public void put(Long customerId, String firstName, String lastName, String dni, String email) {
+        addAll(List.of(prepare(customerId, firstName, lastName, dni, email)));
+    }
+
+    /**
+     * Removes a customer from the index.
+     *
+     * @param customerId The customer id.
+     */
+    public void remove(Long customerId) {
+        lock.writeLock().lock();
+        try {
+            int document = documentsByCustomer.remove(customerId);
+            if (document >= 0) {
+                markDeleted(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the customers best matching a query. Every word of the query must occur in one
+     * of the indexed fields; words of one or two characters must start a word, longer ones
+     * may occur anywhere. Exact field matches rank above prefixes, prefixes above infixes.
+     * At most {@link CustomerSearchProperties#getMaxCandidates()} matching customers are
+     * ranked, the earliest indexed first, so a query matching more ranks only those.
+     *
+     * @param query The text typed by the user, e.g. part of a last name, a DNI prefix or an email.
+     * @param limit The maximum number of customers to return.
+     * @return The ids of the matching customers, best match first.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = SearchText.tokens(SearchText.normalize(query));
+        int maxResults = Math.min(limit, properties.getMaxResults());
+        if (tokens.isEmpty() || maxResults <= 0) {
+            return List.of();
+        }
+        int[] keys = tokens.stream().flatMapToInt(token -> Arrays.stream(SearchText.queryKeys(token)))
+                .distinct().toArray();
+        byte[][] tokenBytes = tokens.stream().map(SearchText::toBytes).toArray(byte[][]::new);
+        long bestPossible = (long) MAX_TOKEN_SCORE * tokens.size() << 32;
+        lock.readLock().lock();
+        try {
+            PriorityQueue<Long> best = new PriorityQueue<>(maxResults + 1);
+            int matches = 0;
+            for (int position = 0; position < segments.size(); position++) {
+                IndexSegment segment = segments.get(position);
+                PostingList[] lists = postingListsOf(segment, keys);
+                if (lists.length == 0) {
+                    continue;
+                }
+                PostingList.Cursor[] cursors = new PostingList.Cursor[lists.length];
+                for (int i = 0; i < lists.length; i++) {
+                    cursors[i] = lists[i].cursor();
+                }
+                TextStore texts = segment.texts();
+                int document = cursors[0].next();
+                while (document != PostingList.NO_MORE) {
+                    int next = document;
+                    for (int i = 1; i < cursors.length && next == document; i++) {
+                        next = cursors[i].advance(document);
+                    }
+                    if (next != document) {
+                        document = next == PostingList.NO_MORE ? next : cursors[0].advance(next);
+                        continue;
+                    }
+                    if (!segment.isDeleted(document)) {
+                        int location = segment.textLocation(document);
+                        int score = score(texts.page(location), texts.start(location), texts.end(location), tokenBytes);
+                        if (score > 0) {
+                            // Earlier indexed documents win ties
+                            long ranked = ((long) score << 32)
+                                    | (Integer.MAX_VALUE - (position << SEGMENT_BITS | document));
+                            if (best.size() < maxResults || ranked > best.peek()) {
+                                best.add(ranked);
+                                if (best.size() > maxResults) {
+                                    best.poll();
+                                }
+                            }
+                            // Stop once enough matches were ranked or no later one can rank higher
+                            if (++matches >= properties.getMaxCandidates()
+                                    || best.size() == maxResults && best.peek() >= bestPossible) {
+                                return results(best);
+                            }
+                        }
+                    }
+                    document = cursors[0].next();
+                }
+            }
+            return results(best);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of customers in the index.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsByCustomer.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The bytes taken by the stored texts of all documents.
+     */
+    long textBytes() {
+        lock.readLock().lock();
+        try {
+            return segments.stream().mapToLong(segment -> segment.texts().usedBytes()).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of documents held by the index, deleted ones included.
+     */
+    long documentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.stream().mapToLong(IndexSegment::documentCount).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Normalizes a customer and computes its keys, without touching the index, so that
+     * callers can prepare documents in parallel before adding them.
+     *
+     * @param customerId The customer id.
+     * @param firstName The customer's first name.
+     * @param lastName The customer's last name.
+     * @param dni The customer's DNI.
+     * @param email The customer's email address.
+     * @return The document ready to be added.
+     */
+    static Document prepare(Long customerId, String firstName, String lastName, String dni, String email) {
+        String text = SearchText.normalize(firstName) + FIELD_SEPARATOR + SearchText.normalize(lastName)
+                + FIELD_SEPARATOR + SearchText.normalize(dni) + FIELD_SEPARATOR + SearchText.normalize(email);
+        return new Document(customerId, SearchText.toBytes(text), SearchText.documentKeys(text));
+    }
+
+    /**
+     * Adds prepared documents, replacing earlier entries of the same customers.
+     *
+     * @param documents The documents to add.
+     */
+    void addAll(List<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            for (Document added : documents) {
+                int previous = documentsByCustomer.get(added.customerId);
+                if (previous >= 0) {
+                    markDeleted(previous);
+                }
+                IndexSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (segment == null || segment.documentCount() == segmentSize) {
+                    if (segment != null) {
+                        segment.seal();
+                        requestMerge();
+                    }
+                    segment = new IndexSegment(allocateSlot(), Math.min(segmentSize, 1024));
+                    slots[segment.slot()] = segment;
+                    segments.add(segment);
+                }
+                int document = segment.add(added.customerId, added.text, added.keys);
+                documentsByCustomer.put(added.customerId, segment.slot() << SEGMENT_BITS | document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merges sealed segments until none has a quarter of its documents deleted and no two
+     * neighbours fit in one segment. Runs on the merge thread, or directly in tests.
+     */
+    void merge() {
+        synchronized (mergeMonitor) {
+            while (true) {
+                List<IndexSegment> sources;
+                List<BitSet> snapshots = new ArrayList<>();
+                lock.readLock().lock();
+                try {
+                    sources = selectMerge();
+                    if (sources.isEmpty()) {
+                        return;
+                    }
+                    for (IndexSegment source : sources) {
+                        snapshots.add(source.deletedSnapshot());
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                // Sealed segments only change by deletions, recorded apart from the snapshots
+                int[][] renumbered = new int[sources.size()][];
+                IndexSegment merged = IndexSegment.merge(sources, snapshots, renumbered);
+                lock.writeLock().lock();
+                try {
+                    swap(sources, snapshots, renumbered, merged);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    private List<Long> results(PriorityQueue<Long> best) {
+        Long[] ranked = best.toArray(new Long[0]);
+        Arrays.sort(ranked);
+        List<Long> results = new ArrayList<>(ranked.length);
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            int order = Integer.MAX_VALUE - (int) (long) ranked[i];
+            IndexSegment segment = segments.get(order >>> SEGMENT_BITS);
+            results.add(segment.customerId(order & ((1 << SEGMENT_BITS) - 1)));
+        }
+        return results;
+    }
+
+    private static PostingList[] postingListsOf(IndexSegment segment, int[] keys) {
+        PostingList[] lists = new PostingList[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = segment.postings(keys[i]);
+            if (lists[i] == null || lists[i].size() == 0) {
+                return new PostingList[0];
+            }
+        }
+        // Drive the intersection from the rarest gram
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        return lists;
+    }
+
+    private void markDeleted(int reference) {
+        IndexSegment segment = slots[reference >>> SEGMENT_BITS];
+        segment.markDeleted(reference & ((1 << SEGMENT_BITS) - 1));
+        if (segment.isSealed() && needsCompaction(segment)) {
+            requestMerge();
+        }
+    }
+
+    private void requestMerge() {
+        if (mergeRequested.compareAndSet(false, true)) {
+            mergeExecutor.execute(() -> {
+                mergeRequested.set(false);
+                merge();
+            });
+        }
+    }
+
+    /**
+     * Picks the first run of sealed segments worth merging: one with a quarter of its
+     * documents deleted, or small neighbours, extended while the live documents fit in one
+     * segment. The last segment still takes documents and is never merged.
+     */
+    private List<IndexSegment> selectMerge() {
+        for (int first = 0; first < segments.size() - 1; first++) {
+            List<IndexSegment> run = new ArrayList<>(List.of(segments.get(first)));
+            int live = segments.get(first).liveCount();
+            for (int next = first + 1; next < segments.size() - 1
+                    && live + segments.get(next).liveCount() <= segmentSize; next++) {
+                run.add(segments.get(next));
+                live += segments.get(next).liveCount();
+            }
+            if (run.size() > 1 || needsCompaction(run.get(0))) {
+                return run;
+            }
+        }
+        return List.of();
+    }
+
+    private static boolean needsCompaction(IndexSegment segment) {
+        return segment.deletedCount() > 0 && segment.deletedCount() >= segment.documentCount() / 4;
+    }
+
+    /**
+     * Replaces merged segments by their copy, carrying over documents deleted since the copy
+     * was taken. Called under the write lock.
+     */
+    private void swap(List<IndexSegment> sources, List<BitSet> snapshots, int[][] renumbered, IndexSegment merged) {
+        for (int i = 0; i < sources.size(); i++) {
+            BitSet deletedSince = sources.get(i).deletedSnapshot();
+            deletedSince.andNot(snapshots.get(i));
+            for (int document = deletedSince.nextSetBit(0); document >= 0;
+                 document = deletedSince.nextSetBit(document + 1)) {
+                merged.markDeleted(renumbered[i][document]);
+            }
+        }
+        int position = segments.indexOf(sources.get(0));
+        segments.subList(position, position + sources.size()).clear();
+        if (merged.liveCount() > 0) {
+            merged.setSlot(allocateSlot());
+            slots[merged.slot()] = merged;
+            segments.add(position, merged);
+            for (int document = 0; document < merged.documentCount(); document++) {
+                if (!merged.isDeleted(document)) {
+                    documentsByCustomer.put(merged.customerId(document), merged.slot() << SEGMENT_BITS | document);
+                }
+            }
+        }
+        for (IndexSegment source : sources) {
+            slots[source.slot()] = null;
+        }
+    }
+
+    private int allocateSlot() {
+        for (int slot = 0; slot < MAX_SEGMENTS; slot++) {
+            if (slots[slot] == null) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("Search index is full: " + MAX_SEGMENTS + " segments");
+    }
+
+    /**
+     * Scores a document against every query token; a token that does not match rejects it.
+     *
+     * @param text The page holding the normalized text of the document.
+     * @param start The offset of the text's first character.
+     * @param end The offset right after the text's last character.
+     * @param tokens The query tokens.
+     * @return The total score, or 0 if the document does not match.
+     */
+    private static int score(byte[] text, int start, int end, byte[][] tokens) {
+        int total = 0;
+        for (byte[] token : tokens) {
+            int best = 0;
+            for (int at = indexOf(text, end, token, start); at >= 0 && best < 4;
+                 at = indexOf(text, end, token, at + 1)) {
+                best = Math.max(best, score(text, start, end, token, at));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int score(byte[] text, int start, int end, byte[] token, int at) {
+        boolean wordStart = at == start || SearchText.code((char) text[at - 1]) == 0;
+        if (!wordStart) {
+            return token.length > 2 ? 1 : 0;
+        }
+        boolean fieldStart = at == start || text[at - 1] == FIELD_SEPARATOR_BYTE;
+        int tokenEnd = at + token.length;
+        boolean fieldEnd = tokenEnd == end || text[tokenEnd] == FIELD_SEPARATOR_BYTE;
+        if (fieldStart) {
+            return fieldEnd ? 4 : 3;
+        }
+        return 2;
+    }
+
+    private static int indexOf(byte[] text, int end, byte[] token, int from) {
+        for (int at = from; at <= end - token.length; at++) {
+            int matched = 0;
+            while (matched < token.length && text[at + matched] == token[matched]) {
+                matched++;
+            }
+            if (matched == token.length) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A customer's normalized text and keys, prepared for {@link #addAll}.
+     */
+    static final class Document {
+
+        private final long customerId;
+        private final byte[] text;
+        private final int[] keys;
+
+        private Document(long customerId, byte[] text, int[] keys) {
+            this.customerId = customerId;
+            this.text = text;
+            this.keys = keys;
+        }
+    }
+}
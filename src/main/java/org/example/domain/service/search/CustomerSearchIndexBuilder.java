@@ -0,0 +1,88 @@
+package org.example.domain.service.search;
+
+import org.example.domain.repository.CustomerRepository;
+import org.example.domain.repository.CustomerSearchFields;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Loads every customer into the search index when the application starts. Shards are read
+ * in parallel, page by page in id order, and each page is normalized in parallel before
+ * being added to the index.
+ */
+@Component
+public class CustomerSearchIndexBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSearchIndexBuilder.class);
+
+    private final CustomerRepository customerRepository;
+    private final CustomerSearchIndex index;
+    private final CustomerSearchProperties properties;
+    private final ShardRouter shardRouter;
+    private final AtomicBoolean built = new AtomicBoolean();
+
+    /**
+     * Constructor for CustomerSearchIndexBuilder, injecting the customer repository and the index.
+     *
+     * @param customerRepository Repository for customer data access.
+     * @param index The index to load.
+     * @param properties The search configuration.
+     * @param shardRouter Router providing the shards to read.
+     */
+    @Autowired
+    public CustomerSearchIndexBuilder(CustomerRepository customerRepository, CustomerSearchIndex index,
+                                      CustomerSearchProperties properties, ShardRouter shardRouter) {
+        this.customerRepository = customerRepository;
+        this.index = index;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Loads the customers of every shard once the application context is ready.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void build() {
+        if (!properties.isBuildOnStartup() || !built.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int loaded = shardRouter.fanOut(this::loadCurrentShard).stream().mapToInt(Integer::intValue).sum();
+        log.info("Indexed {} customers for search in {} ms", loaded, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds the customers of the current shard to the index.
+     *
+     * @return The number of customers read.
+     */
+    private int loadCurrentShard() {
+        int pageSize = properties.getBuildPageSize();
+        int loaded = 0;
+        Long lastId = Long.MIN_VALUE;
+        List<CustomerSearchFields> page;
+        do {
+            page = customerRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            index.addAll(page.parallelStream()
+                    .map(customer -> CustomerSearchIndex.prepare(customer.getId(), customer.getFirstName(),
+                            customer.getLastName(), customer.getDni(), customer.getEmail()))
+                    .collect(Collectors.toList()));
+            lastId = page.get(page.size() - 1).getId();
+            loaded += page.size();
+        } while (page.size() == pageSize);
+        return loaded;
+    }
+}
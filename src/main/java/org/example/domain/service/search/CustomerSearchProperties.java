@@ -0,0 +1,57 @@
+package org.example.domain.service.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the customer search index, bound from the {@code bank.search} properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "bank.search")
+public class CustomerSearchProperties {
+
+    // Whether the index is loaded from the shards when the application starts
+    private boolean buildOnStartup = true;
+
+    // Customers read per query while loading the index
+    private int buildPageSize = 10_000;
+
+    // Upper bound on the matching customers ranked per search, keeping broad queries fast;
+    // broad queries then rank only the earliest indexed matches
+    private int maxCandidates = 500;
+
+    // Upper bound on the matches returned per search
+    private int maxResults = 100;
+
+    public boolean isBuildOnStartup() {
+        return buildOnStartup;
+    }
+
+    public void setBuildOnStartup(boolean buildOnStartup) {
+        this.buildOnStartup = buildOnStartup;
+    }
+
+    public int getBuildPageSize() {
+        return buildPageSize;
+    }
+
+    public void setBuildPageSize(int buildPageSize) {
+        this.buildPageSize = buildPageSize;
+    }
+
+    public int getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    public void setMaxCandidates(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+}
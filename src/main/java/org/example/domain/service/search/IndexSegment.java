@@ -0,0 +1,208 @@
+package org.example.domain.service.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A run of documents of the search index with its own document numbers, posting lists and
+ * texts. Documents are only appended to the last segment of the index; once it is full the
+ * segment is sealed and only ever changes by documents being marked deleted, so a sealed
+ * segment can be read without locking while its replacement is built. Not thread-safe.
+ */
+final class IndexSegment {
+
+    private final PostingList[] postings = new PostingList[SearchText.KEY_SPACE];
+    private final TextStore texts = new TextStore();
+    private final BitSet deleted = new BitSet();
+    private long[] customerIds;
+    private int[] textLocations;
+    private int documentCount;
+    private int deletedCount;
+    private boolean sealed;
+
+    // Position in the index's slot table, part of every document reference into this segment
+    private int slot;
+
+    /**
+     * Creates an empty segment.
+     *
+     * @param slot The slot of the segment.
+     * @param initialCapacity The number of documents to allocate room for.
+     */
+    IndexSegment(int slot, int initialCapacity) {
+        this.slot = slot;
+        this.customerIds = new long[Math.max(16, initialCapacity)];
+        this.textLocations = new int[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Copies the documents of consecutive segments that were not deleted at the time of the
+     * given snapshots into one new sealed segment, renumbered in their original order.
+     *
+     * @param sources The segments to copy, in index order.
+     * @param deletedSnapshots The deleted documents of each source, as of the copy.
+     * @param renumbered Receives, per source, the new number of every document, or -1 if dropped.
+     * @return The new segment, with no slot assigned yet.
+     */
+    static IndexSegment merge(List<IndexSegment> sources, List<BitSet> deletedSnapshots, int[][] renumbered) {
+        int live = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            live += sources.get(i).documentCount - deletedSnapshots.get(i).cardinality();
+        }
+        IndexSegment merged = new IndexSegment(-1, live);
+        for (int i = 0; i < sources.size(); i++) {
+            IndexSegment source = sources.get(i);
+            BitSet snapshot = deletedSnapshots.get(i);
+            int[] numbers = new int[source.documentCount];
+            for (int document = 0; document < source.documentCount; document++) {
+                if (snapshot.get(document)) {
+                    numbers[document] = -1;
+                } else {
+                    int location = source.textLocations[document];
+                    numbers[document] = merged.append(source.customerIds[document], source.texts.page(location),
+                            source.texts.start(location), source.texts.end(location));
+                }
+            }
+            renumbered[i] = numbers;
+        }
+        for (int key = 0; key < SearchText.KEY_SPACE; key++) {
+            PostingList target = null;
+            for (int i = 0; i < sources.size(); i++) {
+                PostingList list = sources.get(i).postings[key];
+                if (list == null) {
+                    continue;
+                }
+                int[] numbers = renumbered[i];
+                PostingList.Cursor cursor = list.cursor();
+                for (int document = cursor.next(); document != PostingList.NO_MORE; document = cursor.next()) {
+                    if (numbers[document] >= 0) {
+                        if (target == null) {
+                            target = new PostingList();
+                        }
+                        target.add(numbers[document]);
+                    }
+                }
+            }
+            if (target != null) {
+                target.trim();
+                merged.postings[key] = target;
+            }
+        }
+        merged.sealed = true;
+        return merged;
+    }
+
+    /**
+     * Appends a document.
+     *
+     * @param customerId The customer of the document.
+     * @param text The normalized text of the document.
+     * @param keys The keys the document is indexed under, ascending.
+     * @return The number of the document within the segment.
+     */
+    int add(long customerId, byte[] text, int[] keys) {
+        int document = append(customerId, text, 0, text.length);
+        for (int key : keys) {
+            if (postings[key] == null) {
+                postings[key] = new PostingList();
+            }
+            postings[key].add(document);
+        }
+        return document;
+    }
+
+    /**
+     * Marks a document deleted; it stays in the posting lists until the segment is merged.
+     *
+     * @param document The number of the document within the segment.
+     */
+    void markDeleted(int document) {
+        if (!deleted.get(document)) {
+            deleted.set(document);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * @param document The number of a document within the segment.
+     * @return true if the document was deleted.
+     */
+    boolean isDeleted(int document) {
+        return deleted.get(document);
+    }
+
+    /**
+     * @return A copy of the deleted documents, taken before the segment is merged.
+     */
+    BitSet deletedSnapshot() {
+        return (BitSet) deleted.clone();
+    }
+
+    /**
+     * @param key A gram key.
+     * @return The posting list of the key, or null if no document has the key.
+     */
+    PostingList postings(int key) {
+        return postings[key];
+    }
+
+    /**
+     * @param document The number of a document within the segment.
+     * @return The customer of the document.
+     */
+    long customerId(int document) {
+        return customerIds[document];
+    }
+
+    /**
+     * @param document The number of a document within the segment.
+     * @return The location of the document's text in {@link #texts()}.
+     */
+    int textLocation(int document) {
+        return textLocations[document];
+    }
+
+    TextStore texts() {
+        return texts;
+    }
+
+    int documentCount() {
+        return documentCount;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    int liveCount() {
+        return documentCount - deletedCount;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    int slot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    private int append(long customerId, byte[] text, int from, int to) {
+        int document = documentCount++;
+        if (document == customerIds.length) {
+            customerIds = Arrays.copyOf(customerIds, document + (document >> 1));
+            textLocations = Arrays.copyOf(textLocations, customerIds.length);
+        }
+        customerIds[document] = customerId;
+        textLocations[document] = texts.add(text, from, to);
+        return document;
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.domain.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Ascending list of document numbers, stored as variable-length deltas in a byte array.
+ * Every 64th entry is also recorded in a skip table, so a cursor can jump close to a
+ * target document instead of decoding the whole list. Not thread-safe.
+ */
+final class PostingList {
+
+    /**
+     * Returned by a cursor once it moved past the last document.
+     */
+    static final int NO_MORE = Integer.MAX_VALUE;
+
+    private static final int SKIP_INTERVAL = 64;
+
+    private byte[] bytes = new byte[16];
+    private int length;
+    private int size;
+    private int lastDocument = -1;
+
+    // Document of every SKIP_INTERVAL-th entry and the offset right after its encoding
+    private int[] skipDocuments = new int[1];
+    private int[] skipOffsets = new int[1];
+
+    /**
+     * Appends a document, which must be greater than every document already in the list.
+     *
+     * @param document The document number.
+     */
+    void add(int document) {
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length + (bytes.length >> 1) + 5);
+        }
+        int delta = document - lastDocument;
+        while ((delta & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        bytes[length++] = (byte) delta;
+        if (size % SKIP_INTERVAL == 0) {
+            int skip = size / SKIP_INTERVAL;
+            if (skip == skipDocuments.length) {
+                skipDocuments = Arrays.copyOf(skipDocuments, skip * 2);
+                skipOffsets = Arrays.copyOf(skipOffsets, skip * 2);
+            }
+            skipDocuments[skip] = document;
+            skipOffsets[skip] = length;
+        }
+        lastDocument = document;
+        size++;
+    }
+
+    /**
+     * @return The number of documents in the list.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return A cursor positioned before the first document.
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Releases unused capacity once no more documents will be added.
+     */
+    void trim() {
+        int skips = (size + SKIP_INTERVAL - 1) / SKIP_INTERVAL;
+        bytes = Arrays.copyOf(bytes, length);
+        skipDocuments = Arrays.copyOf(skipDocuments, Math.max(1, skips));
+        skipOffsets = Arrays.copyOf(skipOffsets, Math.max(1, skips));
+    }
+
+    /**
+     * Forward-only iterator over the documents of the list.
+     */
+    final class Cursor {
+
+        private int index = -1;
+        private int document = -1;
+        private int offset;
+
+        /**
+         * @return The next document, or {@link #NO_MORE} at the end of the list.
+         */
+        int next() {
+            if (index + 1 >= size) {
+                index = size;
+                document = NO_MORE;
+                return NO_MORE;
+            }
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[offset++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            index++;
+            document += delta;
+            return document;
+        }
+
+        /**
+         * Moves to the first document greater than or equal to the target.
+         *
+         * @param target The document to move to.
+         * @return The document found, or {@link #NO_MORE} if there is none.
+         */
+        int advance(int target) {
+            if (document >= target) {
+                return document;
+            }
+            int nextSkip = index < 0 ? 0 : index / SKIP_INTERVAL + 1;
+            if (nextSkip * SKIP_INTERVAL < size && skipDocuments[nextSkip] <= target) {
+                int skip = lastSkipAtOrBefore(nextSkip, target);
+                index = skip * SKIP_INTERVAL;
+                document = skipDocuments[skip];
+                offset = skipOffsets[skip];
+            }
+            while (document < target) {
+                next();
+            }
+            return document;
+        }
+
+        private int lastSkipAtOrBefore(int from, int target) {
+            int low = from;
+            int high = (size - 1) / SKIP_INTERVAL;
+            int found = from;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (skipDocuments[middle] <= target) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found;
+        }
+    }
+}
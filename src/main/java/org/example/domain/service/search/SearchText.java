@@ -0,0 +1,158 @@
+package org.example.domain.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Text handling shared by indexing and querying. Text is lowercased and stripped of accents,
+ * then split into tokens of letters and digits. Each token is indexed under the grams of
+ * "^token", where '^' marks the token start: a one-letter prefix gram "^a" plus every
+ * trigram. A gram of up to three symbols from an alphabet of 38 maps to a dense key.
+ */
+final class SearchText {
+
+    // Symbol codes: 0 pads a short gram, 1-26 letters, 27-36 digits, 37 the token start
+    private static final int ALPHABET = 38;
+    private static final int START = 37;
+
+    /**
+     * The number of distinct gram keys.
+     */
+    static final int KEY_SPACE = ALPHABET * ALPHABET * ALPHABET;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private SearchText() {
+    }
+
+    /**
+     * @param text The text to normalize, possibly null.
+     * @return The text lowercased and without accents.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param c A normalized character.
+     * @return The symbol code of the character, or 0 if it separates tokens.
+     */
+    static int code(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        return 0;
+    }
+
+    /**
+     * Converts normalized text to one byte per character for storage. Letters, digits and line
+     * breaks are kept; every other character only separates tokens and becomes a space.
+     *
+     * @param normalized Normalized text.
+     * @return The text as bytes.
+     */
+    static byte[] toBytes(String normalized) {
+        byte[] bytes = new byte[normalized.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = normalized.charAt(i);
+            bytes[i] = (byte) (code(c) != 0 || c == '\n' ? c : ' ');
+        }
+        return bytes;
+    }
+
+    /**
+     * @param normalized Normalized text.
+     * @return The tokens of the text, in order.
+     */
+    static List<String> tokens(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean inToken = i < normalized.length() && code(normalized.charAt(i)) != 0;
+            if (inToken && start < 0) {
+                start = i;
+            } else if (!inToken && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Computes the keys a document is indexed under.
+     *
+     * @param normalized The normalized text of the document.
+     * @return The distinct keys, sorted ascending.
+     */
+    static int[] documentKeys(String normalized) {
+        int[] keys = new int[16];
+        int count = 0;
+        // The last two symbols of the current token, with the token start counting as a symbol
+        int beforePrevious = 0;
+        int previous = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            int symbol = code(normalized.charAt(i));
+            if (symbol == 0) {
+                previous = 0;
+                continue;
+            }
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            if (previous == 0) {
+                keys[count++] = key(START, symbol, 0);
+                beforePrevious = START;
+            } else {
+                keys[count++] = key(beforePrevious, previous, symbol);
+                beforePrevious = previous;
+            }
+            previous = symbol;
+        }
+        Arrays.sort(keys, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || keys[i] != keys[distinct - 1]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    /**
+     * Computes the keys whose posting lists together contain every document matching a
+     * query token. Tokens of one or two symbols match token prefixes, longer tokens match
+     * anywhere within a token.
+     *
+     * @param token A query token.
+     * @return The keys of the token.
+     */
+    static int[] queryKeys(String token) {
+        int length = token.length();
+        if (length == 1) {
+            return new int[] {key(START, code(token.charAt(0)), 0)};
+        }
+        if (length == 2) {
+            return new int[] {key(START, code(token.charAt(0)), code(token.charAt(1)))};
+        }
+        int[] keys = new int[length - 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(code(token.charAt(i)), code(token.charAt(i + 1)), code(token.charAt(i + 2)));
+        }
+        return keys;
+    }
+
+    private static int key(int first, int second, int third) {
+        return (first * ALPHABET + second) * ALPHABET + third;
+    }
+}
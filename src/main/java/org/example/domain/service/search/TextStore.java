@@ -0,0 +1,107 @@
+package org.example.domain.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Append-only store of document texts as single-byte characters, packed one after the other
+ * into pages of up to 16 MB instead of one String per document. A text is addressed by an int
+ * location holding its page and offset, and starts with its length as a variable-length int.
+ * Up to 256 pages, i.e. 4 GB of text, can be addressed. Not thread-safe.
+ */
+final class TextStore {
+
+    private static final int PAGE_BITS = 24;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int OFFSET_MASK = PAGE_SIZE - 1;
+    private static final int MAX_PAGES = 256;
+
+    private byte[][] pages = {new byte[1024]};
+    private int lastPage;
+    private int position;
+    private long usedBytes;
+
+    /**
+     * Appends a text.
+     *
+     * @param source The array holding the text, one byte per character.
+     * @param from The offset of the text's first character.
+     * @param to The offset right after the text's last character.
+     * @return The location of the text.
+     */
+    int add(byte[] source, int from, int to) {
+        int needed = to - from + 5;
+        if (position + needed > PAGE_SIZE) {
+            if (lastPage + 1 == MAX_PAGES) {
+                throw new IllegalStateException("Search text store is full.");
+            }
+            if (lastPage + 1 == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            pages[++lastPage] = new byte[Math.max(1024, needed)];
+            position = 0;
+        }
+        byte[] page = pages[lastPage];
+        if (position + needed > page.length) {
+            page = Arrays.copyOf(page, Math.min(PAGE_SIZE, Math.max(position + needed, page.length * 2)));
+            pages[lastPage] = page;
+        }
+        int location = (lastPage << PAGE_BITS) | position;
+        int length = to - from;
+        while ((length & ~0x7F) != 0) {
+            page[position++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        page[position++] = (byte) length;
+        System.arraycopy(source, from, page, position, to - from);
+        position += to - from;
+        usedBytes += position - (location & OFFSET_MASK);
+        return location;
+    }
+
+    /**
+     * @param location The location of a text.
+     * @return The page holding the text.
+     */
+    byte[] page(int location) {
+        return pages[location >>> PAGE_BITS];
+    }
+
+    /**
+     * @param location The location of a text.
+     * @return The offset of the text's first character within its page.
+     */
+    int start(int location) {
+        byte[] page = page(location);
+        int offset = location & OFFSET_MASK;
+        while (page[offset] < 0) {
+            offset++;
+        }
+        return offset + 1;
+    }
+
+    /**
+     * @param location The location of a text.
+     * @return The offset right after the text's last character within its page.
+     */
+    int end(int location) {
+        byte[] page = page(location);
+        int offset = location & OFFSET_MASK;
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = page[offset++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return offset + length;
+    }
+
+    /**
+     * @return The number of bytes taken by the texts and their lengths.
+     */
+    long usedBytes() {
+        return usedBytes;
+    }
+
+}
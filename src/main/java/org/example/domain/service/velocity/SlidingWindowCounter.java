@@ -0,0 +1,115 @@
+package org.example.domain.service.velocity;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free sliding-window counter backed by a fixed ring of time buckets.
+ * Each bucket packs its epoch (upper 32 bits) and value (lower 32 bits) into a single
+ * long, so rolling a stale bucket over and adding to it is one compare-and-set.
+ */
+final class SlidingWindowCounter {
+
+    private static final long LOW_MASK = 0xFFFFFFFFL;
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray cents;
+
+    /**
+     * Creates a counter covering the given window, split into equally sized buckets.
+     *
+     * @param windowMillis The length of the window in milliseconds.
+     * @param bucketCount The number of buckets in the ring.
+     */
+    SlidingWindowCounter(long windowMillis, int bucketCount) {
+        this.bucketCount = bucketCount;
+        this.bucketMillis = Math.max(1, windowMillis / bucketCount);
+        this.counts = new AtomicLongArray(bucketCount);
+        this.cents = new AtomicLongArray(bucketCount);
+    }
+
+    /**
+     * Adds one withdrawal of the given amount to the bucket for the current time.
+     *
+     * @param nowMillis The current time in milliseconds.
+     * @param amountCents The withdrawn amount in cents.
+     * @return The epoch of the bucket the withdrawal was added to, needed to {@link #remove} it.
+     */
+    long add(long nowMillis, long amountCents) {
+        long epoch = epoch(nowMillis);
+        int slot = (int) (epoch % bucketCount);
+        addToSlot(counts, slot, epoch, 1);
+        addToSlot(cents, slot, epoch, amountCents);
+        return epoch;
+    }
+
+    /**
+     * Takes back a withdrawal added earlier. Nothing is done if its bucket has since rolled
+     * over, as the withdrawal no longer counts against the window anyway.
+     *
+     * @param epoch The epoch returned by {@link #add}.
+     * @param amountCents The amount in cents that was added.
+     */
+    void remove(long epoch, long amountCents) {
+        int slot = (int) (epoch % bucketCount);
+        removeFromSlot(counts, slot, epoch, 1);
+        removeFromSlot(cents, slot, epoch, amountCents);
+    }
+
+    /**
+     * @param nowMillis The current time in milliseconds.
+     * @return The number of withdrawals recorded within the window.
+     */
+    long count(long nowMillis) {
+        return sum(counts, epoch(nowMillis));
+    }
+
+    /**
+     * @param nowMillis The current time in milliseconds.
+     * @return The total amount in cents recorded within the window.
+     */
+    long amountCents(long nowMillis) {
+        return sum(cents, epoch(nowMillis));
+    }
+
+    private long epoch(long nowMillis) {
+        return (nowMillis / bucketMillis) & LOW_MASK;
+    }
+
+    private static void addToSlot(AtomicLongArray array, int slot, long epoch, long delta) {
+        while (true) {
+            long current = array.get(slot);
+            long value = (current >>> 32) == epoch ? (current & LOW_MASK) + delta : delta;
+            long updated = (epoch << 32) | Math.min(value, LOW_MASK);
+            if (array.compareAndSet(slot, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static void removeFromSlot(AtomicLongArray array, int slot, long epoch, long delta) {
+        while (true) {
+            long current = array.get(slot);
+            if ((current >>> 32) != epoch) {
+                return;
+            }
+            long updated = (epoch << 32) | Math.max(0, (current & LOW_MASK) - delta);
+            if (array.compareAndSet(slot, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private long sum(AtomicLongArray array, long epoch) {
+        long total = 0;
+        for (int slot = 0; slot < bucketCount; slot++) {
+            long packed = array.get(slot);
+            long age = (epoch - (packed >>> 32)) & LOW_MASK;
+            if (age < bucketCount) {
+                total += packed & LOW_MASK;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,260 @@
+package org.example.domain.service.velocity;
+
+import org.example.domain.model.BankAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Velocity limit check backed by per-account sliding-window counters held in memory.
+ * Each tracked account keeps a one-minute and a one-day ring of buckets. A withdrawal is
+ * checked and added while holding the account's windows, so concurrent withdrawals of one
+ * account see each other: they never exceed a limit together, and one that fits is never
+ * denied because of another that does not. Account types without limits are not tracked.
+ * Accounts that stay idle are evicted periodically, and once more accounts than configured
+ * are tracked a background sweep evicts the least recently used.
+ */
+@Component
+public class SlidingWindowVelocityCheck implements VelocityLimitCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(SlidingWindowVelocityCheck.class);
+
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long DAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+
+    // 12 buckets of 5 seconds and 24 buckets of 1 hour
+    private static final int MINUTE_BUCKETS = 12;
+    private static final int DAY_BUCKETS = 24;
+
+    // A sweep over capacity evicts down to this share of the maximum, so it does not run again right away
+    private static final double SWEEP_TARGET_RATIO = 0.9;
+
+    private static final Reservation UNLIMITED = new Reservation() {
+        @Override
+        public boolean isGranted() {
+            return true;
+        }
+
+        @Override
+        public void release() {
+        }
+    };
+
+    private static final Reservation DENIED = new Reservation() {
+        @Override
+        public boolean isGranted() {
+            return false;
+        }
+
+        @Override
+        public void release() {
+        }
+    };
+
+    private final VelocityLimitProperties properties;
+    private final ConcurrentMap<String, AccountWindows> windows = new ConcurrentHashMap<>();
+    private final ExecutorService sweepExecutor;
+    private final AtomicBoolean sweepPending = new AtomicBoolean();
+
+    /**
+     * Constructor for SlidingWindowVelocityCheck, injecting the configured limits.
+     *
+     * @param properties The velocity limits per account type.
+     */
+    @Autowired
+    public SlidingWindowVelocityCheck(VelocityLimitProperties properties) {
+        this.properties = properties;
+        this.sweepExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "velocity-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Reservation tryAcquire(BankAccount account, double amount) {
+        VelocityLimitProperties.Limits limits = properties.limitsFor(account.getAccountType());
+        if (limits == null) {
+            return UNLIMITED;
+        }
+        long now = System.currentTimeMillis();
+        long amountCents = toCents(amount);
+        while (true) {
+            AccountWindows accountWindows = windowsOf(account.getAccountNumber());
+            synchronized (accountWindows) {
+                // Evicted windows are being dropped from the map; retry with fresh ones
+                if (accountWindows.evicted) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                accountWindows.lastAccessMillis = now;
+                boolean fits = withinLimit(accountWindows.minute.count(now) + 1, limits.getMaxWithdrawalsPerMinute())
+                        && withinLimit(accountWindows.minute.amountCents(now) + amountCents,
+                                toCents(limits.getMaxAmountPerMinute()))
+                        && withinLimit(accountWindows.day.count(now) + 1, limits.getMaxWithdrawalsPerDay())
+                        && withinLimit(accountWindows.day.amountCents(now) + amountCents,
+                                toCents(limits.getMaxAmountPerDay()));
+                if (!fits) {
+                    return DENIED;
+                }
+                return new WindowReservation(accountWindows, amountCents,
+                        accountWindows.minute.add(now, amountCents), accountWindows.day.add(now, amountCents));
+            }
+        }
+    }
+
+    /**
+     * Removes accounts that have not withdrawn within the configured idle period.
+     */
+    @Scheduled(fixedDelayString = "${bank.velocity.eviction-interval-ms:60000}")
+    public void evictIdleAccounts() {
+        long cutoff = System.currentTimeMillis() - properties.getIdleEvictionMillis();
+        windows.forEach((accountNumber, accountWindows) -> tryEvict(accountNumber, accountWindows, cutoff));
+    }
+
+    /**
+     * Evicts the least recently used accounts while more accounts than configured are tracked.
+     * Limits of an evicted account that is still active start over from zero, which is the
+     * price of bounding memory; the maximum should cover the accounts active within a day.
+     */
+    public void evictExcessAccounts() {
+        int maxTracked = properties.getMaxTrackedAccounts();
+        long[] lastAccess = windows.values().stream().mapToLong(accountWindows -> accountWindows.lastAccessMillis)
+                .toArray();
+        int excess = lastAccess.length - (int) (maxTracked * SWEEP_TARGET_RATIO);
+        if (lastAccess.length <= maxTracked || excess <= 0) {
+            return;
+        }
+        Arrays.sort(lastAccess);
+        // Accounts touched within the current millisecond are always kept
+        long cutoff = Math.min(lastAccess[excess - 1], System.currentTimeMillis() - 1);
+        int evicted = 0;
+        for (Map.Entry<String, AccountWindows> entry : windows.entrySet()) {
+            if (evicted < excess && tryEvict(entry.getKey(), entry.getValue(), cutoff)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.warn("Tracking more than {} accounts for velocity limits, evicted {} least recently used",
+                    maxTracked, evicted);
+        }
+    }
+
+    /**
+     * @return The number of accounts currently tracked in memory.
+     */
+    public int getTrackedAccounts() {
+        return windows.size();
+    }
+
+    /**
+     * Stops the eviction thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        sweepExecutor.shutdown();
+    }
+
+    /**
+     * Returns the windows of an account, creating them if needed. The caller must check that
+     * they were not evicted while holding their monitor.
+     */
+    private AccountWindows windowsOf(String accountNumber) {
+        AccountWindows accountWindows = windows.get(accountNumber);
+        if (accountWindows == null) {
+            accountWindows = windows.computeIfAbsent(accountNumber, k -> new AccountWindows());
+            if (windows.size() > properties.getMaxTrackedAccounts()) {
+                requestSweep();
+            }
+        }
+        return accountWindows;
+    }
+
+    /**
+     * Evicts an account unless it was touched after the cutoff. Marking the windows evicted
+     * under their monitor means no withdrawal is ever added to windows that are being dropped.
+     */
+    private boolean tryEvict(String accountNumber, AccountWindows accountWindows, long cutoff) {
+        synchronized (accountWindows) {
+            if (accountWindows.lastAccessMillis > cutoff) {
+                return false;
+            }
+            accountWindows.evicted = true;
+        }
+        return windows.remove(accountNumber, accountWindows);
+    }
+
+    private void requestSweep() {
+        if (sweepPending.compareAndSet(false, true)) {
+            sweepExecutor.execute(() -> {
+                try {
+                    evictExcessAccounts();
+                } finally {
+                    sweepPending.set(false);
+                }
+            });
+        }
+    }
+
+    private static boolean withinLimit(long value, long limit) {
+        return limit <= 0 || value <= limit;
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Sliding windows kept for a single account.
+     */
+    private static final class AccountWindows {
+        final SlidingWindowCounter minute = new SlidingWindowCounter(MINUTE_MILLIS, MINUTE_BUCKETS);
+        final SlidingWindowCounter day = new SlidingWindowCounter(DAY_MILLIS, DAY_BUCKETS);
+        volatile long lastAccessMillis = System.currentTimeMillis();
+        // Guarded by the windows' monitor
+        boolean evicted;
+    }
+
+    /**
+     * A withdrawal added to the windows of an account, remembering the buckets it went to.
+     */
+    private static final class WindowReservation implements Reservation {
+
+        private final AccountWindows accountWindows;
+        private final long amountCents;
+        private final long minuteEpoch;
+        private final long dayEpoch;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private WindowReservation(AccountWindows accountWindows, long amountCents, long minuteEpoch, long dayEpoch) {
+            this.accountWindows = accountWindows;
+            this.amountCents = amountCents;
+            this.minuteEpoch = minuteEpoch;
+            this.dayEpoch = dayEpoch;
+        }
+
+        @Override
+        public boolean isGranted() {
+            return !released.get();
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                accountWindows.minute.remove(minuteEpoch, amountCents);
+                accountWindows.day.remove(dayEpoch, amountCents);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.domain.service.velocity;
+
+import org.example.domain.model.BankAccount;
+
+/**
+ * Pluggable check applied on the withdrawal path to cap how often and how much
+ * an account can withdraw within a time window.
+ */
+public interface VelocityLimitCheck {
+
+    /**
+     * Atomically checks a withdrawal against the velocity limits of the account and, if it
+     * fits, reserves it so it counts against the limits of concurrent withdrawals.
+     * A granted reservation must be released if the withdrawal does not complete.
+     *
+     * @param account The account being debited.
+     * @param amount The amount to withdraw.
+     * @return The reservation; not granted if the withdrawal would exceed a limit.
+     */
+    Reservation tryAcquire(BankAccount account, double amount);
+
+    /**
+     * A withdrawal counted against the velocity limits of an account.
+     */
+    interface Reservation {
+
+        /**
+         * @return true if the withdrawal fits within the limits and was counted.
+         */
+        boolean isGranted();
+
+        /**
+         * Takes the withdrawal back out of the limits, e.g. when the balance rule rejects it or
+         * its transaction rolls back. Calling this more than once has no further effect.
+         */
+        void release();
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.domain.service.velocity;
+
+import org.example.domain.model.BankAccount;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuration of withdrawal velocity limits, bound from the {@code bank.velocity} properties.
+ * Limits are defined per account type; a limit of zero means the limit is not enforced.
+ */
+@Component
+@ConfigurationProperties(prefix = "bank.velocity")
+public class VelocityLimitProperties {
+
+    private Map<BankAccount.AccountType, Limits> limits = new EnumMap<>(BankAccount.AccountType.class);
+
+    // Accounts without withdrawals for this long are dropped from memory
+    private long idleEvictionMillis = 24 * 60 * 60 * 1000L;
+
+    // Upper bound on the number of accounts tracked at once
+    private int maxTrackedAccounts = 100_000;
+
+    public Map<BankAccount.AccountType, Limits> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<BankAccount.AccountType, Limits> limits) {
+        this.limits = limits;
+    }
+
+    public long getIdleEvictionMillis() {
+        return idleEvictionMillis;
+    }
+
+    public void setIdleEvictionMillis(long idleEvictionMillis) {
+        this.idleEvictionMillis = idleEvictionMillis;
+    }
+
+    public int getMaxTrackedAccounts() {
+        return maxTrackedAccounts;
+    }
+
+    public void setMaxTrackedAccounts(int maxTrackedAccounts) {
+        this.maxTrackedAccounts = maxTrackedAccounts;
+    }
+
+    /**
+     * Returns the limits configured for an account type.
+     *
+     * @param accountType The type of account.
+     * @return The configured limits, or null if the account type has no limit.
+     */
+    public Limits limitsFor(BankAccount.AccountType accountType) {
+        Limits configured = limits.get(accountType);
+        return configured == null || configured.isUnlimited() ? null : configured;
+    }
+
+    /**
+     * Withdrawal limits for a single account type.
+     */
+    public static class Limits {
+
+        private int maxWithdrawalsPerMinute;
+        private double maxAmountPerMinute;
+        private int maxWithdrawalsPerDay;
+        private double maxAmountPerDay;
+
+        public int getMaxWithdrawalsPerMinute() {
+            return maxWithdrawalsPerMinute;
+        }
+
+        public void setMaxWithdrawalsPerMinute(int maxWithdrawalsPerMinute) {
+            this.maxWithdrawalsPerMinute = maxWithdrawalsPerMinute;
+        }
+
+        public double getMaxAmountPerMinute() {
+            return maxAmountPerMinute;
+        }
+
+        public void setMaxAmountPerMinute(double maxAmountPerMinute) {
+            this.maxAmountPerMinute = maxAmountPerMinute;
+        }
+
+        public int getMaxWithdrawalsPerDay() {
+            return maxWithdrawalsPerDay;
+        }
+
+        public void setMaxWithdrawalsPerDay(int maxWithdrawalsPerDay) {
+            this.maxWithdrawalsPerDay = maxWithdrawalsPerDay;
+        }
+
+        public double getMaxAmountPerDay() {
+            return maxAmountPerDay;
+        }
+
+        public void setMaxAmountPerDay(double maxAmountPerDay) {
+            this.maxAmountPerDay = maxAmountPerDay;
+        }
+
+        /**
+         * @return true if none of the limits is enforced.
+         */
+        public boolean isUnlimited() {
+            return maxWithdrawalsPerMinute <= 0 && maxAmountPerMinute <= 0
+                    && maxWithdrawalsPerDay <= 0 && maxAmountPerDay <= 0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.Customer;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.example.domain.service.BankAccountService;
+import org.example.domain.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Loads the application against four embedded H2 shards and runs the main operations end to end.
+ */
+@SpringBootTest(classes = BankTestApplication.class)
+@ActiveProfiles({"h2shards", "test"})
+class BankApplicationTests {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Test
+    void contextLoadsWithFourShards() {
+        assertEquals(4, shardRouter.shardCount());
+    }
+
+    @Test
+    void registersCustomerAndMovesMoney() {
+        Customer customer = customerService.registerCustomer("Ana", "Torres", "10000001", "ana.torres@mail.com");
+        BankAccount account = bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.SAVINGS);
+
+        bankAccountService.deposit(account.getAccountNumber(), 100.0);
+        bankAccountService.withdraw(account.getAccountNumber(), 30.0);
+
+        assertEquals(70.0, bankAccountService.getBalance(account.getAccountNumber()), 0.001);
+        assertEquals(customer.getId(), customerService.getCustomerByDni("10000001").getId());
+    }
+
+    @Test
+    void rejectedWithdrawalsDoNotCountAgainstVelocityLimits() {
+        Customer customer = customerService.registerCustomer("Luis", "Vega", "10000002", "luis.vega@mail.com");
+        BankAccount account = bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.SAVINGS);
+
+        // Savings accounts allow five withdrawals per minute; these all fail the balance rule
+        for (int i = 0; i < 6; i++) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> bankAccountService.withdraw(account.getAccountNumber(), 50.0));
+        }
+        bankAccountService.deposit(account.getAccountNumber(), 100.0);
+        bankAccountService.withdraw(account.getAccountNumber(), 50.0);
+
+        assertEquals(50.0, bankAccountService.getBalance(account.getAccountNumber()), 0.001);
+    }
+}
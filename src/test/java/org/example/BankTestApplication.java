@@ -0,0 +1,15 @@
+package org.example;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Application configuration for tests: the domain services and repositories without the
+ * console menu of {@link Main}.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@Import(AppConfig.class)
+public class BankTestApplication {
+}
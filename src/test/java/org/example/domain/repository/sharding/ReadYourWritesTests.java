@@ -0,0 +1,85 @@
+package org.example.domain.repository.sharding;
+
+import org.example.BankTestApplication;
+import org.example.domain.model.Customer;
+import org.example.domain.repository.CustomerRepository;
+import org.example.domain.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs against a primary and a simulated replica trailing it by one second, with a short
+ * read-your-writes window, and tells primary from replica reads by whether they see a write.
+ */
+@SpringBootTest(classes = BankTestApplication.class, properties = "bank.replication.read-your-writes-window-millis=1500")
+@ActiveProfiles({"h2replica", "test"})
+class ReadYourWritesTests {
+
+    // Past the read-your-writes window and the simulated replication delay
+    private static final long SETTLE_MILLIS = 2_500;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void readsGoToThePrimaryWithinTheWindowAndToTheReplicaAfterIt() throws Exception {
+        Customer customer = ReplicaContext.withSession("alice", () -> {
+            Customer registered = customerService.registerCustomer("Alicia", "Original", "60000001",
+                    "alicia@mail.com");
+            // The replica does not have the customer yet, so only the primary can answer
+            assertEquals("Original", customerService.getCustomerById(registered.getId()).getLastName());
+            return registered;
+        });
+        Thread.sleep(SETTLE_MILLIS);
+
+        ReplicaContext.withSession("bob", () -> customerService.updateCustomer(customer.getId(), "Alicia", "Nuevo",
+                "alicia@mail.com"));
+
+        // Alice's window is over, so her read is served by the replica, which has not seen Bob's change
+        assertEquals("Original", ReplicaContext.withSession("alice",
+                () -> customerService.getCustomerById(customer.getId()).getLastName()));
+        // Bob wrote within his window and reads his own change from the primary
+        assertEquals("Nuevo", ReplicaContext.withSession("bob",
+                () -> customerService.getCustomerById(customer.getId()).getLastName()));
+        // Reads that did not declare they tolerate lag go to the primary, with or without a session
+        assertEquals("Nuevo", customerRepository.findById(customer.getId()).orElseThrow().getLastName());
+        assertEquals("Nuevo", ReplicaContext.withSession("alice",
+                () -> customerRepository.findById(customer.getId()).orElseThrow().getLastName()));
+    }
+
+    @Test
+    void windowStartsWhenALongTransactionCommits() throws Exception {
+        Customer customer = ReplicaContext.withSession("carol", () -> customerService.registerCustomer("Carola",
+                "Original", "60000002", "carola@mail.com"));
+        Thread.sleep(SETTLE_MILLIS);
+
+        ReplicaContext.withSession("carol", () -> transactionTemplate.execute(status -> {
+            customerService.updateCustomer(customer.getId(), "Carola", "Nuevo", "carola@mail.com");
+            // Outlast the read-your-writes window before committing
+            sleep(2_000);
+            return null;
+        }));
+
+        assertEquals("Nuevo", ReplicaContext.withSession("carol",
+                () -> customerService.getCustomerById(customer.getId()).getLastName()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.domain.repository.sharding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaLagMonitorTest {
+
+    private ReplicationProperties properties;
+    private JdbcTemplate replica;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = new DriverManagerDataSource("jdbc:h2:mem:lagPrimary;DB_CLOSE_DELAY=-1", "sa", "");
+        DataSource replicaDataSource = new DriverManagerDataSource("jdbc:h2:mem:lagReplica;DB_CLOSE_DELAY=-1", "sa", "");
+        replica = new JdbcTemplate(replicaDataSource);
+        ReplicaLagMonitor.createHeartbeatTable(replica);
+        replica.update("DELETE FROM " + ReplicaLagMonitor.HEARTBEAT_TABLE);
+        properties = new ReplicationProperties();
+        properties.setMaxLagMillis(1_000);
+        monitor = new ReplicaLagMonitor(
+                new ShardDataSources(List.of(primaryDataSource), List.of(List.of(replicaDataSource))), properties);
+        monitor.createHeartbeatTables();
+    }
+
+    @Test
+    void replicaIsUnknownUntilItShowsAHeartbeat() {
+        monitor.heartbeat();
+
+        assertEquals(Long.MAX_VALUE, monitor.getLagMillis(0, 0));
+        assertFalse(monitor.isWithinMaxLag(0, 0));
+    }
+
+    @Test
+    void lagKeepsGrowingWhenHeartbeatsStop() throws InterruptedException {
+        replica.update("INSERT INTO " + ReplicaLagMonitor.HEARTBEAT_TABLE + " (id, beat_millis) VALUES (1, ?)",
+                System.currentTimeMillis());
+        monitor.heartbeat();
+        assertTrue(monitor.isWithinMaxLag(0, 0));
+
+        // No heartbeat runs in the meantime, as when the scheduler is stalled
+        Thread.sleep(1_500);
+
+        assertFalse(monitor.isWithinMaxLag(0, 0));
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.domain.repository.sharding;
+
+import org.example.BankTestApplication;
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.Customer;
+import org.example.domain.service.BankAccountService;
+import org.example.domain.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures deposit throughput against one and against four embedded H2 shards. Every shard is
+ * a separate database, so throughput should grow with the shard count as long as there are
+ * processors to run them; on fewer processors the test only checks that sharding costs nothing.
+ */
+class ShardScalingTests {
+
+    private static final int ACCOUNTS = 64;
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 3;
+    private static final long WARM_UP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 2_000;
+
+    @Test
+    void throughputScalesFromOneToFourShards() throws Exception {
+        try (ConfigurableApplicationContext oneShardContext = start("h2single");
+             ConfigurableApplicationContext fourShardContext = start("h2shards")) {
+            Workload oneShard = new Workload(oneShardContext);
+            Workload fourShards = new Workload(fourShardContext);
+            // Alternate between both setups so neither benefits from a warmer JIT, keeping the best round
+            double oneShardBest = 0;
+            double fourShardsBest = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                oneShardBest = Math.max(oneShardBest, oneShard.depositsPerSecond());
+                fourShardsBest = Math.max(fourShardsBest, fourShards.depositsPerSecond());
+            }
+            double speedup = fourShardsBest / oneShardBest;
+            int processors = Runtime.getRuntime().availableProcessors();
+            System.out.printf("Deposits per second: %.0f on 1 shard, %.0f on 4 shards (%.2fx, %d processors)%n",
+                    oneShardBest, fourShardsBest, speedup, processors);
+
+            // Near-linear: at least 70% of the ideal speedup the available processors allow
+            double expected = 0.7 * Math.min(4, processors);
+            // Without spare processors, only guard against routing overhead beyond measurement noise
+            assertTrue(speedup >= Math.min(expected, 0.6), String.format("speedup %.2fx", speedup));
+            if (processors >= 4) {
+                assertTrue(speedup >= expected, String.format("speedup %.2fx, expected %.2fx", speedup, expected));
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String profile) {
+        return new SpringApplicationBuilder(BankTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profile, "test")
+                .properties("bank.search.build-on-startup=false")
+                .run();
+    }
+
+    /**
+     * Deposits spread over the accounts of one customer, run against one application context.
+     */
+    private static final class Workload {
+
+        private final BankAccountService bankAccountService;
+        private final List<String> accountNumbers = new ArrayList<>();
+
+        private Workload(ConfigurableApplicationContext context) {
+            CustomerService customerService = context.getBean(CustomerService.class);
+            bankAccountService = context.getBean(BankAccountService.class);
+            String dni = String.valueOf(50_000_000 + Math.floorMod(System.nanoTime(), 1_000_000));
+            Customer customer = customerService.registerCustomer("Carga", "Prueba", dni,
+                    "carga." + dni + "@mail.com");
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accountNumbers.add(bankAccountService.openBankAccount(customer.getId(),
+                        BankAccount.AccountType.CHECKING).getAccountNumber());
+            }
+        }
+
+        private double depositsPerSecond() throws Exception {
+            runDeposits(bankAccountService, accountNumbers, WARM_UP_MILLIS);
+            return runDeposits(bankAccountService, accountNumbers, MEASURE_MILLIS) * 1000.0 / MEASURE_MILLIS;
+        }
+    }
+
+    private static long runDeposits(BankAccountService bankAccountService, List<String> accountNumbers,
+                                    long durationMillis) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicLong deposits = new AtomicLong();
+        long deadline = System.currentTimeMillis() + durationMillis;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int first = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = first; System.currentTimeMillis() < deadline; i += THREADS) {
+                    bankAccountService.deposit(accountNumbers.get(i % accountNumbers.size()), 1.0);
+                    deposits.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(durationMillis + 30_000, TimeUnit.MILLISECONDS);
+        }
+        executor.shutdown();
+        return deposits.get();
+    }
+}
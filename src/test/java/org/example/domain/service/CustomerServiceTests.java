@@ -0,0 +1,175 @@
+package org.example.domain.service;
+
+import org.example.BankTestApplication;
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.Customer;
+import org.example.domain.repository.CustomerRepository;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks customer rules that span shards against four embedded H2 shards.
+ */
+@SpringBootTest(classes = BankTestApplication.class)
+@ActiveProfiles({"h2shards", "test"})
+class CustomerServiceTests {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private CustomerKeyRegistry customerKeyRegistry;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentRegistrationsOfOneDniCreateOneCustomer() throws Exception {
+        int registrations = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(registrations);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < registrations; i++) {
+            String email = "twin" + i + "@mail.com";
+            results.add(CompletableFuture.supplyAsync(() -> {
+                await(start);
+                try {
+                    customerService.registerCustomer("Twin", "Doe", "40000001", email);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }, executor));
+        }
+        start.countDown();
+        long registered = 0;
+        for (CompletableFuture<Boolean> result : results) {
+            registered += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, registered);
+    }
+
+    @Test
+    void emailIsUniqueAcrossShardsIgnoringCase() {
+        customerService.registerCustomer("Ines", "Soto", "40000002", "ines.soto@mail.com");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> customerService.registerCustomer("Ines", "Soto", "40000003", "Ines.Soto@mail.com"));
+        // The DNI of the rejected registration was released again
+        customerService.registerCustomer("Ines", "Prado", "40000003", "ines.prado@mail.com");
+    }
+
+    @Test
+    void updatedEmailMovesTheClaim() {
+        Customer customer = customerService.registerCustomer("Raul", "Leon", "40000004", "raul.leon@mail.com");
+        customerService.registerCustomer("Sara", "Leon", "40000005", "sara.leon@mail.com");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> customerService.updateCustomer(customer.getId(), "Raul", "Leon", "sara.leon@mail.com"));
+        customerService.updateCustomer(customer.getId(), "Raul", "Leon", "raul.l@mail.com");
+
+        customerService.registerCustomer("Raul", "Otro", "40000006", "raul.leon@mail.com");
+    }
+
+    @Test
+    void deletingACustomerRemovesItsAccountsAndFreesItsKeys() {
+        Customer customer = customerService.registerCustomer("Olga", "Paz", "40000007", "olga.paz@mail.com");
+        for (int i = 0; i < 4; i++) {
+            bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.SAVINGS);
+        }
+        assertEquals(4, bankAccountService.getBankAccounts(customer.getId()).size());
+
+        customerService.deleteCustomer(customer.getId());
+
+        assertTrue(bankAccountService.getBankAccounts(customer.getId()).isEmpty());
+        customerService.registerCustomer("Olga", "Paz", "40000007", "olga.paz@mail.com");
+    }
+
+    @Test
+    void positiveBalanceAccountsAreCollectedFromEveryShard() {
+        Customer customer = customerService.registerCustomer("Ivan", "Cruz", "40000008", "ivan.cruz@mail.com");
+        List<BankAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            accounts.add(bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.CHECKING));
+        }
+        for (int i = 0; i < 4; i++) {
+            bankAccountService.deposit(accounts.get(i).getAccountNumber(), 10.0);
+        }
+
+        assertEquals(4, bankAccountService.getPositiveBalanceAccounts(customer.getId()).size());
+    }
+
+    @Test
+    void backfillClaimsTheKeysOfCustomersRegisteredWithoutThem() {
+        Customer legacy = saveWithoutClaims(new Customer("Eloy", "Mar", "40000009", "eloy.mar@mail.com"));
+        customerService.registerCustomer("Dora", "Sol", "40000010", "dora.sol@mail.com");
+        saveWithoutClaims(new Customer("Dora", "Luna", "40000011", "Dora.Sol@mail.com"));
+
+        Map<String, Integer> result = customerKeyRegistry.backfill();
+
+        // The email differing only in case from a claimed one is the single conflict
+        assertEquals(1, result.get("conflicts"));
+        assertEquals(legacy.getId(), customerService.getCustomerByDni("40000009").getId());
+        assertThrows(IllegalArgumentException.class,
+                () -> customerService.registerCustomer("Eloy", "Otro", "40000009", "eloy.otro@mail.com"));
+        assertThrows(IllegalArgumentException.class,
+                () -> customerService.registerCustomer("Eloy", "Mar", "40000014", "Eloy.Mar@mail.com"));
+    }
+
+    @Test
+    void customerIsFoundByDniThroughItsClaim() {
+        Customer customer = customerService.registerCustomer("Tomas", "Rey", "40000012", "tomas.rey@mail.com");
+
+        assertEquals(customer.getId(), customerService.getCustomerByDni("40000012").getId());
+        assertThrows(IllegalArgumentException.class, () -> customerService.getCustomerByDni("40000013"));
+    }
+
+    /**
+     * Saves a customer the way it was saved before DNIs and emails were claimed.
+     */
+    private Customer saveWithoutClaims(Customer customer) {
+        return transactionTemplate.execute(status -> {
+            Customer saved = customerRepository.save(customer);
+            return shardRouter.onCustomerShard(saved.getId(), () -> {
+                customerRepository.flush();
+                return saved;
+            });
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
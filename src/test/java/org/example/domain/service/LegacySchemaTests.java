@@ -0,0 +1,52 @@
+package org.example.domain.service;
+
+import org.example.BankTestApplication;
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against a single database that still has the foreign key from bank accounts to
+ * customers, as created before sharding.
+ */
+@SpringBootTest(classes = BankTestApplication.class, properties = {
+        "bank.sharding.shards[0].url=jdbc:h2:mem:legacy0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "bank.sharding.shards[0].username=sa",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@ActiveProfiles("test")
+class LegacySchemaTests {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void deletingACustomerWithAccountsSatisfiesTheForeignKey() {
+        new JdbcTemplate(dataSource).execute("ALTER TABLE bank_accounts ADD CONSTRAINT fk_bank_accounts_customer "
+                + "FOREIGN KEY (customer_id) REFERENCES customers (id)");
+        Customer customer = customerService.registerCustomer("Lia", "Vera", "70000001", "lia.vera@mail.com");
+        BankAccount account = bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.SAVINGS);
+        bankAccountService.deposit(account.getAccountNumber(), 25.0);
+        bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.CHECKING);
+
+        customerService.deleteCustomer(customer.getId());
+
+        assertTrue(bankAccountService.getBankAccounts(customer.getId()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> customerService.getCustomerById(customer.getId()));
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.domain.service.idempotency;
+
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.IdempotencyRecord;
+import org.example.domain.repository.BankAccountRepository;
+import org.example.domain.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class IdempotencyCacheTest {
+
+    private IdempotencyProperties properties;
+    private IdempotencyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyProperties();
+        cache = new IdempotencyCache(properties);
+    }
+
+    @Test
+    void duplicateWithinTheTtlIsAnsweredWithoutTheRepositories() {
+        IdempotencyRecordRepository records = mock(IdempotencyRecordRepository.class);
+        BankAccountRepository accounts = mock(BankAccountRepository.class);
+        IdempotencyService service = new IdempotencyService(cache, records, accounts, properties, null,
+                mock(PlatformTransactionManager.class));
+        cache.put(record("key-1"), account(150.0));
+
+        BankAccount result = service.execute("key-1", IdempotencyRecord.Operation.DEPOSIT, "ACC-1", 50.0, () -> {
+            throw new AssertionError("applied twice");
+        });
+
+        assertEquals(150.0, result.getBalance(), 0.001);
+        verifyNoInteractions(records, accounts);
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws InterruptedException {
+        properties.setCacheTtlMillis(20);
+        cache.put(record("key-1"), account(10.0));
+        assertNotNull(cache.get("key-1"));
+
+        Thread.sleep(40);
+        cache.put(record("key-2"), account(20.0));
+
+        assertNull(cache.get("key-1"));
+        assertNotNull(cache.get("key-2"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void oldestEntriesAreEvictedFirstOverCapacity() {
+        properties.setMaxCacheEntries(2);
+        cache.put(record("key-1"), account(10.0));
+        cache.put(record("key-2"), account(20.0));
+        cache.put(record("key-3"), account(30.0));
+
+        assertNull(cache.get("key-1"));
+        assertEquals(20.0, cache.get("key-2").getResult().getBalance(), 0.001);
+        assertEquals(30.0, cache.get("key-3").getResult().getBalance(), 0.001);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void callersCannotChangeTheCachedResult() {
+        BankAccount original = account(100.0);
+        cache.put(record("key-1"), original);
+        original.deposit(1.0);
+
+        BankAccount first = cache.get("key-1").getResult();
+        first.deposit(5.0);
+        BankAccount second = cache.get("key-1").getResult();
+
+        assertNotSame(first, second);
+        assertEquals(100.0, second.getBalance(), 0.001);
+    }
+
+    private static IdempotencyRecord record(String key) {
+        return new IdempotencyRecord(key, IdempotencyRecord.Operation.DEPOSIT, "ACC-1", 50.0);
+    }
+
+    private static BankAccount account(double balance) {
+        return new BankAccount(BankAccount.AccountType.CHECKING).withBalance(balance);
+    }
+}
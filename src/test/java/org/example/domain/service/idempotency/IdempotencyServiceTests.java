@@ -0,0 +1,135 @@
+package org.example.domain.service.idempotency;
+
+import org.example.BankTestApplication;
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.Customer;
+import org.example.domain.model.IdempotencyRecord;
+import org.example.domain.repository.sharding.ShardRouter;
+import org.example.domain.service.BankAccountService;
+import org.example.domain.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs idempotent operations with the result cache disabled, so retries are answered from
+ * the persisted keys.
+ */
+@SpringBootTest(classes = BankTestApplication.class, properties = "bank.idempotency.cache-ttl-millis=-1")
+@ActiveProfiles({"h2shards", "test"})
+class IdempotencyServiceTests {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void retryOfPersistedKeyReturnsTheOriginalBalance() {
+        String accountNumber = openAccount("50000001");
+        String key = UUID.randomUUID().toString();
+        assertEquals(100.0, bankAccountService.deposit(accountNumber, 100.0, key).getBalance(), 0.001);
+        bankAccountService.deposit(accountNumber, 50.0);
+
+        BankAccount retried = bankAccountService.deposit(accountNumber, 100.0, key);
+
+        assertEquals(100.0, retried.getBalance(), 0.001);
+        assertEquals(150.0, bankAccountService.getBalance(accountNumber), 0.001);
+    }
+
+    @Test
+    void concurrentRetryIsReportedAsDuplicate() throws Exception {
+        String accountNumber = openAccount("50000002");
+        String key = UUID.randomUUID().toString();
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch retried = new CountDownLatch(1);
+        CompletableFuture<BankAccount> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(
+                status -> shardRouter.onAccountShard(accountNumber, () -> idempotencyService.execute(key,
+                        IdempotencyRecord.Operation.DEPOSIT, accountNumber, 10.0, () -> {
+                            inserted.countDown();
+                            await(retried);
+                            return bankAccountService.deposit(accountNumber, 10.0);
+                        }))));
+        assertTrue(inserted.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<BankAccount> second = CompletableFuture.supplyAsync(
+                () -> bankAccountService.deposit(accountNumber, 10.0, key));
+        // Let the retry reach the insert of the key before the first request commits
+        Thread.sleep(200);
+        retried.countDown();
+
+        assertEquals(10.0, first.get(10, TimeUnit.SECONDS).getBalance(), 0.001);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof DuplicateRequestException, String.valueOf(failure.getCause()));
+        assertEquals(10.0, bankAccountService.getBalance(accountNumber), 0.001);
+    }
+
+    @Test
+    void keyedDepositsStayCloseToPlainDeposits() {
+        String accountNumber = openAccount("50000003");
+        int operations = 500;
+        for (int i = 0; i < operations; i++) {
+            bankAccountService.deposit(accountNumber, 1.0);
+            bankAccountService.deposit(accountNumber, 1.0, UUID.randomUUID().toString());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            bankAccountService.deposit(accountNumber, 1.0);
+        }
+        long plainNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            bankAccountService.deposit(accountNumber, 1.0, UUID.randomUUID().toString());
+        }
+        long keyedNanos = System.nanoTime() - start;
+
+        // The new-key path adds one lookup and one insert to a transaction that already reads and writes
+        assertTrue(keyedNanos < plainNanos * 3, "plain " + plainNanos + " ns, keyed " + keyedNanos + " ns");
+    }
+
+    @Test
+    void keysLongerThanTheColumnAreRejectedUpFront() {
+        String accountNumber = openAccount("50000004");
+        String key = "k".repeat(IdempotencyRecord.MAX_KEY_LENGTH + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> bankAccountService.deposit(accountNumber, 10.0, key));
+        assertEquals(0.0, bankAccountService.getBalance(accountNumber), 0.001);
+    }
+
+    private String openAccount(String dni) {
+        Customer customer = customerService.registerCustomer("Eva", "Ruiz", dni, "eva." + dni + "@mail.com");
+        return bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.CHECKING)
+                .getAccountNumber();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
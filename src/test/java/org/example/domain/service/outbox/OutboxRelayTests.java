@@ -0,0 +1,138 @@
+package org.example.domain.service.outbox;
+
+import org.example.BankTestApplication;
+import org.example.domain.model.BankAccount;
+import org.example.domain.model.Customer;
+import org.example.domain.model.OutboxEvent;
+import org.example.domain.service.BankAccountService;
+import org.example.domain.service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Relays the outbox into the in-memory sink and checks what reaches it.
+ */
+@SpringBootTest(classes = BankTestApplication.class)
+@ActiveProfiles({"h2shards", "test"})
+class OutboxRelayTests {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private InMemoryOutboxSink sink;
+
+    @Autowired
+    private OutboxProperties properties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void drainPendingEvents() {
+        // Other tests share the databases, so their events may take several runs
+        do {
+            outboxRelay.relay();
+        } while (!sink.drain().isEmpty());
+    }
+
+    @Test
+    void rolledBackOperationLeavesNoEvent() {
+        Long customerId = transactionTemplate.execute(status -> {
+            Customer customer = customerService.registerCustomer("Rosa", "Gil", "30000001", "rosa.gil@mail.com");
+            status.setRollbackOnly();
+            return customer.getId();
+        });
+
+        outboxRelay.relay();
+
+        assertTrue(eventsOf(String.valueOf(customerId)).isEmpty());
+    }
+
+    @Test
+    void relayDeliversEventsInIdOrderAndDeletesThem() {
+        Customer customer = customerService.registerCustomer("Pablo", "Mora", "30000002", "pablo.mora@mail.com");
+        BankAccount account = bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.CHECKING);
+        bankAccountService.deposit(account.getAccountNumber(), 100.0);
+        bankAccountService.withdraw(account.getAccountNumber(), 40.0);
+        bankAccountService.deposit(account.getAccountNumber(), 5.0);
+        customerService.updateCustomer(customer.getId(), "Pablo", "Mora Diaz", "pablo.mora@mail.com");
+        customerService.deleteCustomer(customer.getId());
+
+        outboxRelay.relay();
+        List<OutboxEvent> published = sink.drain();
+
+        List<OutboxEvent> accountEvents = published.stream()
+                .filter(event -> event.getAggregateId().equals(account.getAccountNumber()))
+                .collect(Collectors.toList());
+        assertEquals(List.of(OutboxEvent.EventType.ACCOUNT_OPENED, OutboxEvent.EventType.DEPOSIT,
+                        OutboxEvent.EventType.WITHDRAWAL, OutboxEvent.EventType.DEPOSIT),
+                accountEvents.stream().map(OutboxEvent::getEventType).collect(Collectors.toList()));
+        assertEquals(List.of(OutboxEvent.EventType.CUSTOMER_REGISTERED, OutboxEvent.EventType.CUSTOMER_UPDATED,
+                        OutboxEvent.EventType.CUSTOMER_DELETED),
+                eventsOf(published, String.valueOf(customer.getId())));
+        assertIdsAscending(accountEvents);
+
+        outboxRelay.relay();
+        assertTrue(sink.drain().isEmpty());
+    }
+
+    @Test
+    void relayRunPublishesBoundedBatchesAndResumesOnTheNext() {
+        Customer customer = customerService.registerCustomer("Nora", "Vidal", "30000003", "nora.vidal@mail.com");
+        BankAccount account = bankAccountService.openBankAccount(customer.getId(), BankAccount.AccountType.CHECKING);
+        drainPendingEvents();
+        for (int i = 0; i < 5; i++) {
+            bankAccountService.deposit(account.getAccountNumber(), 10.0);
+        }
+        int batchSize = properties.getBatchSize();
+        int maxBatches = properties.getMaxBatchesPerRun();
+        properties.setBatchSize(2);
+        properties.setMaxBatchesPerRun(1);
+        try {
+            // The account's five deposits are on one shard, two of them per run
+            outboxRelay.relay();
+            assertEquals(2, eventsOf(account.getAccountNumber()).size());
+            outboxRelay.relay();
+            assertEquals(2, eventsOf(account.getAccountNumber()).size());
+        } finally {
+            properties.setBatchSize(batchSize);
+            properties.setMaxBatchesPerRun(maxBatches);
+        }
+        outboxRelay.relay();
+        assertEquals(1, eventsOf(account.getAccountNumber()).size());
+    }
+
+    private List<OutboxEvent.EventType> eventsOf(String aggregateId) {
+        return eventsOf(sink.drain(), aggregateId);
+    }
+
+    private static List<OutboxEvent.EventType> eventsOf(List<OutboxEvent> events, String aggregateId) {
+        return events.stream()
+                .filter(event -> event.getAggregateId().equals(aggregateId))
+                .map(OutboxEvent::getEventType)
+                .collect(Collectors.toList());
+    }
+
+    private static void assertIdsAscending(List<OutboxEvent> events) {
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i - 1).getId() < events.get(i).getId(), "ids out of order: " + events);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.domain.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads a synthetic customer base into the index and reports memory per customer and query
+ * latency. The target is under a millisecond per query at 20 million customers; the test
+ * runs one million by default, which fits the default test heap, and takes a larger size
+ * with {@code -Dsearch.benchmark.customers=...} given about 200 bytes of heap per customer.
+ */
+class CustomerSearchIndexBenchmarkTest {
+
+    private static final int CUSTOMERS = Integer.getInteger("search.benchmark.customers", 1_000_000);
+    private static final String[] FIRST_NAMES = {"Ana", "Luis", "María", "José", "Lucía", "Carlos", "Elena",
+            "Javier", "Sofía", "Pablo", "Marta", "Diego", "Laura", "Andrés", "Paula", "Miguel"};
+    private static final String[] LAST_NAMES = {"García", "Fernández", "González", "Rodríguez", "López",
+            "Martínez", "Sánchez", "Pérez", "Gómez", "Martín", "Jiménez", "Ruiz", "Hernández", "Díaz", "Moreno",
+            "Álvarez", "Romero", "Navarro", "Torres", "Domínguez"};
+
+    @Test
+    void reportsMemoryAndQueryLatency() {
+        Random random = new Random(42);
+        long before = usedHeap();
+        CustomerSearchIndex index = new CustomerSearchIndex(new CustomerSearchProperties());
+        long start = System.nanoTime();
+        for (int from = 0; from < CUSTOMERS; from += 10_000) {
+            index.addAll(LongStream.range(from, Math.min(CUSTOMERS, from + 10_000))
+                    .mapToObj(id -> customer(id, random))
+                    .collect(Collectors.toList()));
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        long bytesPerCustomer = (usedHeap() - before) / CUSTOMERS;
+        // Indexed last, so only found if the candidate cap leaves exact matches alone
+        index.put((long) CUSTOMERS, "Tardío", "Último", "0000000T", "tardio.ultimo@correo.es");
+
+        List<String> queries = List.of("garcia", "maria lopez", "martinez torres", "1234", "an",
+                "ndez", "jose.romero", "lucia 2", "0000000t", "tardio.ultimo@correo.es");
+        for (int i = 0; i < 200; i++) {
+            queries.forEach(query -> index.search(query, 20));
+        }
+        // Best of several rounds, leaving out collections and the threads of other tests
+        List<String> report = new ArrayList<>();
+        long slowestNanos = 0;
+        for (String query : queries) {
+            long nanos = Long.MAX_VALUE;
+            for (int round = 0; round < 5; round++) {
+                long roundStart = System.nanoTime();
+                for (int i = 0; i < 100; i++) {
+                    index.search(query, 20);
+                }
+                nanos = Math.min(nanos, (System.nanoTime() - roundStart) / 100);
+            }
+            slowestNanos = Math.max(slowestNanos, nanos);
+            report.add(String.format("'%s' %d us", query, nanos / 1000));
+        }
+        System.out.printf("Search index: %d customers in %d ms, ~%d bytes per customer (%d of text); %s%n",
+                CUSTOMERS, buildMillis, bytesPerCustomer, index.textBytes() / CUSTOMERS, String.join(", ", report));
+
+        assertEquals(List.of((long) CUSTOMERS), index.search("0000000T", 20));
+        assertEquals(List.of((long) CUSTOMERS), index.search("tardio.ultimo@correo.es", 20));
+        assertTrue(bytesPerCustomer < 250, "bytes per customer " + bytesPerCustomer);
+        assertTrue(slowestNanos < 1_000_000, "slowest query " + slowestNanos + " ns");
+        assertEquals(CUSTOMERS + 1, index.size());
+    }
+
+    private static CustomerSearchIndex.Document customer(long id, Random random) {
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String dni = String.valueOf(10_000_000 + random.nextInt(90_000_000));
+        String email = firstName.toLowerCase() + "." + lastName.split(" ")[0].toLowerCase() + id + "@mail.com";
+        return CustomerSearchIndex.prepare(id, firstName, lastName, dni, email);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.domain.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerSearchIndexTest {
+
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CustomerSearchIndex(new CustomerSearchProperties());
+        index.put(1L, "María", "Gómez", "12345678", "maria.gomez@mail.com");
+        index.put(2L, "Mario", "Gomeztorres", "87654321", "mario@mail.com");
+        index.put(3L, "Ana", "Martínez", "11223344", "ana.martinez@correo.es");
+    }
+
+    @Test
+    void matchesAccentInsensitivePrefixesAndRanksExactFieldsFirst() {
+        assertEquals(List.of(1L, 2L), index.search("gomez", 10));
+        assertEquals(List.of(1L, 2L), index.search("mar gom", 10));
+        assertEquals(List.of(3L), index.search("MARTINEZ", 10));
+    }
+
+    @Test
+    void matchesInfixesOfThreeOrMoreCharacters() {
+        assertEquals(List.of(2L), index.search("torres", 10));
+        assertEquals(List.of(3L), index.search("correo", 10));
+        // Short tokens only match the start of a word
+        assertEquals(List.of(), index.search("rr", 10));
+    }
+
+    @Test
+    void matchesDniPrefixes() {
+        assertEquals(List.of(1L), index.search("1234", 10));
+        assertEquals(List.of(3L), index.search("11", 10));
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        assertEquals(List.of(), index.search("ana gomez", 10));
+        assertEquals(List.of(), index.search("zzz", 10));
+        assertEquals(List.of(), index.search("  ", 10));
+    }
+
+    @Test
+    void updateReplacesAndRemoveDeletes() {
+        index.put(1L, "María", "López", "12345678", "maria.lopez@mail.com");
+        assertEquals(List.of(2L), index.search("gomez", 10));
+        assertEquals(List.of(1L), index.search("lopez", 10));
+
+        index.remove(3L);
+        assertEquals(List.of(), index.search("martinez", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void mergeKeepsLiveDocumentsSearchable() {
+        index = new CustomerSearchIndex(new CustomerSearchProperties(), 1_000);
+        for (long id = 100; id < 20_100; id++) {
+            index.put(id, "Cliente" + id, "Apellido", String.valueOf(id), "cliente" + id + "@mail.com");
+        }
+        for (long id = 100; id < 20_100; id += 2) {
+            index.remove(id);
+        }
+        for (long id = 101; id < 20_100; id += 1_000) {
+            index.put(id, "Cliente" + id, "Renombrado", String.valueOf(id), "cliente" + id + "@mail.com");
+        }
+        index.merge();
+
+        // Exact first names rank above the prefixes of longer ones
+        assertEquals(103L, index.search("cliente103 apellido", 10).get(0));
+        assertTrue(!index.search("cliente100 apellido", 100).contains(100L));
+        assertEquals(List.of(101L, 10101L), index.search("cliente101 renombrado", 10));
+        assertEquals(20, index.search("renombrado", 100).size());
+        assertEquals(10_000, index.size());
+        // Only the segment still taking documents keeps deleted ones
+        assertTrue(index.documentCount() < 10_000 + 1_000, "documents " + index.documentCount());
+    }
+
+    @Test
+    void repeatedUpdatesDoNotGrowTheIndex() {
+        index = new CustomerSearchIndex(new CustomerSearchProperties(), 500);
+        for (int round = 0; round < 20; round++) {
+            for (long id = 0; id < 2_000; id++) {
+                index.put(id, "Cliente", "Ronda" + round, String.valueOf(10_000_000 + id), id + "@mail.com");
+            }
+            index.merge();
+        }
+
+        assertEquals(2_000, index.size());
+        assertTrue(index.documentCount() <= 2_000 + 500, "documents " + index.documentCount());
+        assertEquals(100, index.search("ronda19", 100).size());
+        assertEquals(List.of(), index.search("ronda18", 100));
+        assertEquals(List.of(1_999L), index.search("10001999", 10));
+    }
+
+    @Test
+    void findsLateIndexedCustomerByFullDniPastMaxCandidates() {
+        CustomerSearchProperties properties = new CustomerSearchProperties();
+        properties.setMaxCandidates(20);
+        index = new CustomerSearchIndex(properties, 10_000);
+        Random random = new Random(7);
+        for (long id = 0; id < 50_000; id++) {
+            index.put(id, "Cliente", "Apellido", String.valueOf(10_000_000 + random.nextInt(90_000_000)),
+                    id + "@mail.com");
+        }
+        index.put(50_000L, "Tardío", "Apellido", "55555555", "tardio@mail.com");
+
+        assertEquals(List.of(50_000L), index.search("55555555", 10));
+        assertEquals(List.of(50_000L), index.search("tardio@mail.com", 10));
+        // Broad queries rank the first matches only
+        assertEquals(20, index.search("apellido", 100).size());
+    }
+
+    @Test
+    void limitCapsTheResults() {
+        assertEquals(1, index.search("mail", 1).size());
+    }
+}
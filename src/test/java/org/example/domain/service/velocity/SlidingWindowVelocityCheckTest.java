@@ -0,0 +1,150 @@
+package org.example.domain.service.velocity;
+
+import org.example.domain.model.BankAccount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowVelocityCheckTest {
+
+    private VelocityLimitProperties properties;
+    private SlidingWindowVelocityCheck check;
+
+    @BeforeEach
+    void setUp() {
+        VelocityLimitProperties.Limits limits = new VelocityLimitProperties.Limits();
+        limits.setMaxWithdrawalsPerMinute(5);
+        limits.setMaxAmountPerMinute(1000.0);
+        properties = new VelocityLimitProperties();
+        properties.getLimits().put(BankAccount.AccountType.SAVINGS, limits);
+        check = new SlidingWindowVelocityCheck(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        check.shutdown();
+    }
+
+    @Test
+    void concurrentWithdrawalsFillTheLimitExactly() throws Exception {
+        BankAccount account = new BankAccount(BankAccount.AccountType.SAVINGS);
+
+        assertEquals(5, grantedConcurrently(account, 10.0));
+    }
+
+    @Test
+    void concurrentWithdrawalsFillTheAmountLimitExactly() throws Exception {
+        BankAccount account = new BankAccount(BankAccount.AccountType.SAVINGS);
+        check.tryAcquire(account, 850.0);
+
+        // Only one more withdrawal of 100 fits; a rejected one must not crowd it out
+        assertEquals(1, grantedConcurrently(account, 100.0));
+    }
+
+    @Test
+    void accountTypesWithoutLimitsAreNotTracked() {
+        VelocityLimitCheck.Reservation reservation = check.tryAcquire(
+                new BankAccount(BankAccount.AccountType.CHECKING), 1_000_000.0);
+
+        assertTrue(reservation.isGranted());
+        assertEquals(0, check.getTrackedAccounts());
+    }
+
+    @Test
+    void acquireTakesLessThanAMicrosecond() {
+        VelocityLimitProperties.Limits limits = new VelocityLimitProperties.Limits();
+        limits.setMaxAmountPerDay(1_000_000_000.0);
+        properties.getLimits().put(BankAccount.AccountType.CHECKING, limits);
+        BankAccount[] accounts = new BankAccount[1024];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new BankAccount(BankAccount.AccountType.CHECKING);
+        }
+        int granted = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            granted += check.tryAcquire(accounts[i & 1023], 1.0).isGranted() ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000_000; i++) {
+            granted += check.tryAcquire(accounts[i & 1023], 1.0).isGranted() ? 1 : 0;
+        }
+        long nanosPerCall = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(3_000_000, granted);
+        assertTrue(nanosPerCall < 1_000, "acquire took " + nanosPerCall + " ns");
+    }
+
+    @Test
+    void releasedReservationFreesItsShareOfTheLimit() {
+        BankAccount account = new BankAccount(BankAccount.AccountType.SAVINGS);
+        VelocityLimitCheck.Reservation large = check.tryAcquire(account, 900.0);
+        assertTrue(large.isGranted());
+        assertFalse(check.tryAcquire(account, 200.0).isGranted());
+
+        large.release();
+        large.release();
+
+        assertTrue(check.tryAcquire(account, 200.0).isGranted());
+        assertTrue(check.tryAcquire(account, 800.0).isGranted());
+        assertFalse(check.tryAcquire(account, 0.01).isGranted());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAccountsOverCapacity() throws InterruptedException {
+        properties.setMaxTrackedAccounts(100);
+        for (int i = 0; i < 250; i++) {
+            check.tryAcquire(new BankAccount(BankAccount.AccountType.SAVINGS), 1.0);
+        }
+        // Accounts touched within the current millisecond are never evicted
+        Thread.sleep(5);
+
+        check.evictExcessAccounts();
+
+        assertTrue(check.getTrackedAccounts() <= 100, "tracked " + check.getTrackedAccounts());
+    }
+
+    @Test
+    void keepsIdleAccountsWithinThePeriod() {
+        check.tryAcquire(new BankAccount(BankAccount.AccountType.SAVINGS), 1.0);
+
+        check.evictIdleAccounts();
+
+        assertEquals(1, check.getTrackedAccounts());
+    }
+
+    private int grantedConcurrently(BankAccount account, double amount) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < 100; attempt++) {
+                    if (check.tryAcquire(account, amount).isGranted()) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return granted.get();
+    }
+}